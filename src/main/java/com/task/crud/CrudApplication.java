@@ -1,13 +1,40 @@
 package com.task.crud;
 
+import com.task.crud.response_templates.PhoneImportReport;
+import com.task.crud.service.PhoneImportService;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.nio.file.Paths;
 
 @SpringBootApplication
 public class CrudApplication {
 
+	private static final Logger logger = LogManager.getLogger(CrudApplication.class);
+
 	public static void main(String[] args) {
 		SpringApplication.run(CrudApplication.class, args);
 	}
 
+	/**
+	 * Импортирует CSV-файлы, переданные при запуске параметрами {@code --import=<путь>}.
+	 */
+	@Bean
+	public ApplicationRunner phoneImportRunner(PhoneImportService phoneImportService) {
+		return args -> {
+			if (!args.containsOption("import")) {
+				return;
+			}
+			for (String file : args.getOptionValues("import")) {
+				PhoneImportReport report = phoneImportService.importPhones(Paths.get(file));
+				logger.log(Level.INFO, String.format("Import of %s: %s", file, report));
+			}
+		};
+	}
+
 }
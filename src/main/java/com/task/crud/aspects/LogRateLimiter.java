@@ -0,0 +1,59 @@
+package com.task.crud.aspects;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты записи сообщений об ошибках в лог.
+ * Пропускает не более заданного количества сообщений в секунду, остальные подавляются
+ * и учитываются в счётчике, который сообщается вместе со следующим пропущенным сообщением.
+ * Каждый источник сообщений создаёт собственный экземпляр, чтобы частые ошибки одного вида
+ * не расходовали лимит другого.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-16
+ */
+public class LogRateLimiter {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxPerSecond;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime() - WINDOW_NANOS);
+
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * @param maxPerSecond максимальное количество сообщений в секунду.
+     */
+    public LogRateLimiter(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * Запрашивает разрешение записать сообщение в лог.
+     *
+     * @return {@code -1}, если сообщение нужно подавить; иначе количество сообщений, подавленных с момента предыдущего разрешения.
+     */
+    public long tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    long tryAcquire(long now) {
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+
+        if (windowCount.incrementAndGet() > maxPerSecond) {
+            suppressed.incrementAndGet();
+            return -1;
+        }
+
+        return suppressed.getAndSet(0);
+    }
+}
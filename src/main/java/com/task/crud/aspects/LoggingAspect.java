@@ -1,5 +1,8 @@
 package com.task.crud.aspects;
 
+import com.task.crud.exceptions.IncorrectPhoneDataException;
+import com.task.crud.exceptions.NoSuchPhoneException;
+import com.task.crud.exceptions.ServiceUnavailableException;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -9,6 +12,7 @@ import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
@@ -26,6 +30,17 @@ public class LoggingAspect {
 
     private static final Logger logger = LogManager.getLogger(LoggingAspect.class);
 
+    /**
+     * Ограничитель частоты записи исключений в лог: поток ошибок не должен превращаться
+     * в поток форматирования сообщений.
+     */
+    private LogRateLimiter logRateLimiter;
+
+    @Value("${logging.errors.max-per-second:10}")
+    public void setMaxErrorsPerSecond(int maxErrorsPerSecond) {
+        this.logRateLimiter = new LogRateLimiter(maxErrorsPerSecond);
+    }
+
     /**
      * Определяет точку среза для всех методов, начинающихся с add
      * в классе {@link com.task.crud.service.implementation.PhoneServiceImpl}.
@@ -47,6 +62,13 @@ public class LoggingAspect {
     @Pointcut("execution(* com.task.crud.service.implementation.PhoneServiceImpl.delete*(..))")
     private void allDeletePhoneMethods() {}
 
+    /**
+     * Определяет точку среза для всех методов, начинающихся с patch
+     * в классе {@link com.task.crud.service.implementation.PhoneServiceImpl}.
+     */
+    @Pointcut("execution(* com.task.crud.service.implementation.PhoneServiceImpl.patch*(..))")
+    private void allPatchPhoneMethods() {}
+
     /**
      * Возвращает параметры метода, вызванного в точке среза, в формате строки.
      *
@@ -70,18 +92,39 @@ public class LoggingAspect {
 
     /**
      * Логирует исключения, возникшие в любом методе класса {@link com.task.crud.service.implementation.PhoneServiceImpl}.
+     * Ожидаемые ошибки клиента ({@link NoSuchPhoneException}, {@link IncorrectPhoneDataException}) пишутся
+     * на уровне DEBUG, временная перегрузка ({@link ServiceUnavailableException}) - на уровне WARN,
+     * остальные - на уровне ERROR; WARN и ERROR - не более {@code logging.errors.max-per-second} сообщений
+     * в секунду; количество подавленных сообщений указывается в следующем записанном.
      *
      * @param joinPoint информация о точке среза метода
      * @param exception исключение, выброшенное методом
      */
     @AfterThrowing(pointcut = "execution(* com.task.crud.service.implementation.PhoneServiceImpl.*(..))", throwing = "exception")
     public void afterThrowingAllPhoneMethodsAdvice(JoinPoint joinPoint, Throwable exception) {
+        if (exception instanceof NoSuchPhoneException || exception instanceof IncorrectPhoneDataException) {
+            if (logger.isDebugEnabled()) {
+                logger.log(Level.DEBUG, String.format("Exception %s in method %s, parameters: [%s]",
+                        exception.getClass().getSimpleName(),
+                        joinPoint.getSignature().getName(),
+                        getMethodParams(joinPoint)));
+            }
+            return;
+        }
+
+        long suppressed = logRateLimiter.tryAcquire();
+        if (suppressed < 0) {
+            return;
+        }
+
         String params = getMethodParams(joinPoint);
 
-        logger.log(Level.ERROR, String.format("Exception %s in method %s, parameters: [%s]",
+        Level level = exception instanceof ServiceUnavailableException ? Level.WARN : Level.ERROR;
+        logger.log(level, String.format("Exception %s in method %s, parameters: [%s]%s",
                 exception.getClass().getSimpleName(),
                 joinPoint.getSignature().getName(),
-                params));
+                params,
+                suppressed > 0 ? String.format("; %d similar messages suppressed", suppressed) : ""));
     }
 
     /**
@@ -103,12 +146,13 @@ public class LoggingAspect {
 
     /**
      * Логирует результат всех методов класса {@link com.task.crud.service.implementation.PhoneServiceImpl}, связанных с
-     * добавлением, обновлением и удалением записей (методы, начинающиеся с {@code add}, {@code update} или {@code delete}).
+     * добавлением, обновлением и удалением записей (методы, начинающиеся с {@code add}, {@code update}, {@code patch}
+     * или {@code delete}).
      *
      * @param joinPoint информация о точке среза метода
      * @param result возвращаемое значение метода
      */
-    @AfterReturning(pointcut = "allAddPhoneMethods() || allUpdatePhoneMethods() || allDeletePhoneMethods()", returning = "result")
+    @AfterReturning(pointcut = "allAddPhoneMethods() || allUpdatePhoneMethods() || allPatchPhoneMethods() || allDeletePhoneMethods()", returning = "result")
     public void afterReturningAllExcludeGetPhoneMethodsAdvice(JoinPoint joinPoint, Object result) {
         logger.log(Level.INFO, String.format("Method %s, result: [%s]",
                 joinPoint.getSignature().getName(),
@@ -0,0 +1,68 @@
+package com.task.crud.aspects;
+
+import com.task.crud.timing.RequestTiming;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Аспект для замера фаз обработки HTTP-запроса ({@link RequestTiming}): вызова контроллера,
+ * времени в сервисе и времени в репозитории. Вне HTTP-запроса замеры не выполняются.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-18
+ */
+@Component
+@Aspect
+public class TimingAspect {
+
+    /**
+     * Отмечает момент вызова метода контроллера {@link com.task.crud.controller.MainRestController}.
+     *
+     * @param joinPoint информация о точке среза метода
+     * @return возвращаемое значение метода
+     */
+    @Around("execution(* com.task.crud.controller.MainRestController.*(..))")
+    public Object aroundControllerMethodsAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTiming.current().handlerStarted(System.nanoTime());
+
+        return joinPoint.proceed();
+    }
+
+    /**
+     * Замеряет время выполнения методов {@link com.task.crud.service.implementation.PhoneServiceImpl}.
+     *
+     * @param joinPoint информация о точке среза метода
+     * @return возвращаемое значение метода
+     */
+    @Around("execution(* com.task.crud.service.implementation.PhoneServiceImpl.*(..))")
+    public Object aroundServiceMethodsAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTiming timing = RequestTiming.current();
+        timing.enterService(System.nanoTime());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.exitService(System.nanoTime());
+        }
+    }
+
+    /**
+     * Замеряет время выполнения методов всех реализаций {@link com.task.crud.dao.PhoneDAO}.
+     *
+     * @param joinPoint информация о точке среза метода
+     * @return возвращаемое значение метода
+     */
+    @Around("execution(* com.task.crud.dao.PhoneDAO+.*(..))")
+    public Object aroundDaoMethodsAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTiming timing = RequestTiming.current();
+        timing.enterDao(System.nanoTime());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.exitDao(System.nanoTime());
+        }
+    }
+}
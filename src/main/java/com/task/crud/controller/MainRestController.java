@@ -2,13 +2,22 @@ package com.task.crud.controller;
 
 import com.task.crud.entity.Phone;
 import com.task.crud.response_templates.ApiResponse;
+import com.task.crud.response_templates.PhoneBatchResponse;
+import com.task.crud.response_templates.PhoneImportReport;
+import com.task.crud.service.PhoneImportService;
 import com.task.crud.service.PhoneService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Контроллер для работы с объектами {@link Phone} через REST API.
@@ -30,6 +39,12 @@ public class MainRestController {
     @Autowired
     private PhoneService phoneService;
 
+    /**
+     * Сервис массового импорта объектов {@link Phone} из CSV.
+     */
+    @Autowired
+    private PhoneImportService phoneImportService;
+
     /**
      * Возвращает список всех телефонов.
      *
@@ -53,6 +68,47 @@ public class MainRestController {
         return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), phone));
     }
 
+    /**
+     * Возвращает телефоны по списку идентификаторов, например {@code GET /api/phones?ids=1,2,3}.
+     *
+     * @param ids идентификаторы телефонов.
+     * @return JSON, который содержит код состояние HTTP ответа, найденные объекты {@link Phone} в порядке запроса
+     * и список ненайденных идентификаторов.
+     */
+    @GetMapping(value = "/phones", params = "ids")
+    public ResponseEntity<ApiResponse<PhoneBatchResponse>> getPhones(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), toBatchResponse(ids)));
+    }
+
+    /**
+     * Возвращает телефоны по списку идентификаторов, переданному в теле запроса.
+     * Аналог {@link #getPhones(List)} для больших списков, не помещающихся в строку запроса.
+     *
+     * @param ids JSON-массив идентификаторов телефонов.
+     * @return JSON, который содержит код состояние HTTP ответа, найденные объекты {@link Phone} в порядке запроса
+     * и список ненайденных идентификаторов.
+     */
+    @PostMapping("/phones/lookup")
+    public ResponseEntity<ApiResponse<PhoneBatchResponse>> lookupPhones(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), toBatchResponse(ids)));
+    }
+
+    private PhoneBatchResponse toBatchResponse(List<Long> ids) {
+        List<Phone> found = phoneService.getPhones(ids);
+
+        List<Phone> phones = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) != null) {
+                phones.add(found.get(i));
+            } else {
+                missingIds.add(ids.get(i));
+            }
+        }
+
+        return new PhoneBatchResponse(phones, missingIds);
+    }
+
     /**
      * Сохраняет новый объект {@link Phone} в базе данных.
      *
@@ -65,6 +121,19 @@ public class MainRestController {
         return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), newPhone));
     }
 
+    /**
+     * Импортирует телефоны из CSV, переданного в теле запроса ({@code brand,model,price} в каждой строке).
+     * Тело запроса читается потоком и не загружается в память целиком.
+     *
+     * @param request HTTP-запрос с содержимым CSV в кодировке UTF-8.
+     * @return JSON, который содержит код состояние HTTP ответа и отчёт об импорте.
+     */
+    @PostMapping(value = "/phones/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ApiResponse<PhoneImportReport>> importPhones(HttpServletRequest request) throws IOException {
+        PhoneImportReport report = phoneImportService.importPhones(Channels.newChannel(request.getInputStream()));
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), report));
+    }
+
     /**
      * Обновляет существующий объект {@link Phone} по его идентификатору.
      *
@@ -79,6 +148,21 @@ public class MainRestController {
         return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), newPhone));
     }
 
+    /**
+     * Частично обновляет объект {@link Phone} по его идентификатору (JSON Merge Patch).
+     * Обновляются только переданные поля.
+     *
+     * @param id идентификатор обновляемого объекта.
+     * @param patch изменяемые поля и их новые значения.
+     *
+     * @return JSON, который содержит код состояние HTTP ответа и обновлённый объект {@link Phone}.
+     */
+    @PatchMapping(value = "/phones/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ApiResponse<Phone>> patchPhone(@PathVariable Long id, @RequestBody Map<String, Object> patch) {
+        Phone newPhone = phoneService.patchPhone(id, patch);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), newPhone));
+    }
+
     /**
      * Удаляет телефон по его идентификатору.
      *
@@ -92,14 +176,33 @@ public class MainRestController {
     }
 
     /**
-     * Отливливает выбрасываемые в процессе работы исключения.
+     * Изменяет цену всех телефонов бренда одним запросом к базе данных.
+     * Должен быть передан ровно один из параметров {@code priceMultiplier} и {@code price}.
+     *
+     * @param brand бренд телефонов.
+     * @param priceMultiplier множитель цены.
+     * @param price новая цена.
+     * @return JSON, который содержит код состояние HTTP ответа и количество изменённых записей.
+     */
+    @PatchMapping(value = "/phones", params = "brand")
+    public ResponseEntity<ApiResponse<Integer>> updatePhonesPrice(@RequestParam String brand,
+                                                                  @RequestParam(required = false) Double priceMultiplier,
+                                                                  @RequestParam(required = false) Double price) {
+        int updated = phoneService.updatePhonesPrice(brand, priceMultiplier, price);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), updated));
+    }
+
+    /**
+     * Удаляет все телефоны, удовлетворяющие критериям, одним запросом к базе данных.
      *
-     * @param e объект выбрашенного {@link Exception}.
-     * @return JSON, который содержит код состояние HTTP ответа и описание ошибки.
+     * @param brand бренд телефонов.
+     * @param maxPrice максимальная цена (включительно).
+     * @return JSON, который содержит код состояние HTTP ответа и количество удалённых записей.
      */
-    @ExceptionHandler
-    public ResponseEntity<ApiResponse<String>> handleException(Exception e) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(new ApiResponse<>(HttpStatus.NOT_FOUND.value(), e.getMessage()));
+    @DeleteMapping("/phones")
+    public ResponseEntity<ApiResponse<Integer>> deletePhones(@RequestParam(required = false) String brand,
+                                                             @RequestParam(required = false) Double maxPrice) {
+        int deleted = phoneService.deletePhones(brand, maxPrice);
+        return ResponseEntity.ok(new ApiResponse<>(HttpStatus.OK.value(), deleted));
     }
 }
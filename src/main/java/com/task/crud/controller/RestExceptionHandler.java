@@ -0,0 +1,123 @@
+package com.task.crud.controller;
+
+import com.task.crud.aspects.LogRateLimiter;
+import com.task.crud.exceptions.IncorrectPhoneDataException;
+import com.task.crud.exceptions.NoSuchPhoneException;
+import com.task.crud.exceptions.ServiceUnavailableException;
+import com.task.crud.response_templates.ApiResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Централизованная обработка исключений REST API.
+ * Преобразует исключения в ответ {@link ApiResponse} с соответствующим кодом состояния HTTP:
+ * 400 - некорректный запрос, 404 - телефон не найден, 409 - конфликт с данными в базе,
+ * 503 - временная перегрузка, 500 - непредвиденная ошибка.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-16
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    private static final Logger logger = LogManager.getLogger(RestExceptionHandler.class);
+
+    /**
+     * Ограничитель частоты записи в лог непредвиденных ошибок; отдельный от {@link com.task.crud.aspects.LoggingAspect},
+     * чтобы ошибки сервиса не расходовали его лимит.
+     */
+    private LogRateLimiter logRateLimiter;
+
+    @Value("${logging.errors.max-per-second:10}")
+    public void setMaxErrorsPerSecond(int maxErrorsPerSecond) {
+        this.logRateLimiter = new LogRateLimiter(maxErrorsPerSecond);
+    }
+
+    /**
+     * Обрабатывает обращение к несуществующему телефону.
+     *
+     * @param e объект выброшенного {@link NoSuchPhoneException}.
+     * @return JSON, который содержит код состояние HTTP ответа 404 и описание ошибки.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ApiResponse<String>> handleNoSuchPhone(NoSuchPhoneException e) {
+        return error(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    /**
+     * Обрабатывает некорректные данные запроса: ошибки валидации, неразбираемое тело и неверные типы параметров.
+     *
+     * @param e объект выброшенного исключения.
+     * @return JSON, который содержит код состояние HTTP ответа 400 и описание ошибки.
+     */
+    @ExceptionHandler({IncorrectPhoneDataException.class, HttpMessageNotReadableException.class, TypeMismatchException.class})
+    public ResponseEntity<ApiResponse<String>> handleBadRequest(Exception e) {
+        String message = e instanceof IncorrectPhoneDataException ? e.getMessage() : "Malformed request";
+        return error(HttpStatus.BAD_REQUEST, message);
+    }
+
+    /**
+     * Обрабатывает нарушения ограничений базы данных и конкурентные изменения одной записи.
+     *
+     * @param e объект выброшенного исключения.
+     * @return JSON, который содержит код состояние HTTP ответа 409 и описание ошибки.
+     */
+    @ExceptionHandler({DataIntegrityViolationException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ApiResponse<String>> handleConflict(Exception e) {
+        return error(HttpStatus.CONFLICT, "Request conflicts with the current state of the data");
+    }
+
+    /**
+     * Обрабатывает временную перегрузку, например переполненную очередь групповой фиксации.
+     * В лог не записывается: это ожидаемое противодавление, а не ошибка сервера.
+     *
+     * @param e объект выброшенного {@link ServiceUnavailableException}.
+     * @return JSON, который содержит код состояние HTTP ответа 503 и описание ошибки.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ApiResponse<String>> handleServiceUnavailable(ServiceUnavailableException e) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+
+    /**
+     * Обрабатывает остальные исключения. Исключения Spring MVC, несущие собственный код состояния
+     * (неподдерживаемый метод, тип содержимого, отсутствующий параметр и т.п.), возвращаются с этим кодом,
+     * прочие - с кодом 500 и записью в лог.
+     *
+     * @param e объект выброшенного {@link Exception}.
+     * @return JSON, который содержит код состояние HTTP ответа и описание ошибки.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ApiResponse<String>> handleException(Exception e) {
+        if (e instanceof ErrorResponse errorResponse) {
+            HttpStatusCode status = errorResponse.getStatusCode();
+            String detail = errorResponse.getBody().getDetail();
+            return error(status, detail != null ? detail : e.getMessage());
+        }
+
+        long suppressed = logRateLimiter.tryAcquire();
+        if (suppressed >= 0) {
+            logger.log(Level.ERROR, String.format("Unexpected exception%s",
+                    suppressed > 0 ? String.format("; %d similar messages suppressed", suppressed) : ""), e);
+        }
+
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error");
+    }
+
+    private static ResponseEntity<ApiResponse<String>> error(HttpStatusCode status, String message) {
+        return ResponseEntity.status(status).body(new ApiResponse<>(status.value(), message));
+    }
+}
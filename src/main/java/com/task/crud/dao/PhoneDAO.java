@@ -2,6 +2,7 @@ package com.task.crud.dao;
 
 import com.task.crud.entity.Phone;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,6 +31,14 @@ public interface PhoneDAO {
      */
     public Phone getPhone(Long id);
 
+    /**
+     * Возвращает телефоны с указанными идентификаторами, загружая их пачками.
+     *
+     * @param ids уникальные идентификаторы телефонов.
+     * @return список найденных объектов {@link Phone} в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    public List<Phone> getPhones(Collection<Long> ids);
+
     /**
      * Сохраняет или обновляет объект телефона в базе данных.
      *
@@ -38,10 +47,56 @@ public interface PhoneDAO {
      */
     public Phone savePhone(Phone phone);
 
+    /**
+     * Сохраняет несколько новых телефонов одной многострочной вставкой в рамках одной транзакции.
+     *
+     * @param phones список новых объектов {@link Phone} без идентификаторов.
+     * @return тот же список, в котором каждому объекту {@link Phone} присвоен сгенерированный идентификатор.
+     */
+    public List<Phone> savePhones(List<Phone> phones);
+
+    /**
+     * Сохраняет пачку телефонов в одной транзакции, используя пару бренд и модель как ключ:
+     * у существующих записей обновляется цена, отсутствующие вставляются.
+     * При повторе ключа внутри пачки побеждает последняя запись.
+     *
+     * @param phones список объектов {@link Phone} без идентификаторов.
+     * @return количество вставленных записей; остальные записи пачки обновили существующие.
+     */
+    public int upsertPhones(List<Phone> phones);
+
     /**
      * Удаляет телефон по его идентификатору из базы данных.
      *
      * @param id идентификатор телефона.
      */
     public void deletePhone(Long id);
+
+    /**
+     * Умножает цену всех телефонов указанного бренда одним запросом к базе данных.
+     *
+     * @param brand бренд телефонов.
+     * @param priceMultiplier множитель цены.
+     * @return количество изменённых записей.
+     */
+    public int multiplyPrices(String brand, double priceMultiplier);
+
+    /**
+     * Устанавливает одинаковую цену всем телефонам указанного бренда одним запросом к базе данных.
+     *
+     * @param brand бренд телефонов.
+     * @param price новая цена.
+     * @return количество изменённых записей.
+     */
+    public int setPrices(String brand, double price);
+
+    /**
+     * Удаляет все телефоны, удовлетворяющие критериям, одним запросом к базе данных.
+     * Критерий со значением {@code null} не учитывается.
+     *
+     * @param brand бренд телефонов или {@code null}.
+     * @param maxPrice максимальная цена (включительно) или {@code null}.
+     * @return количество удалённых записей.
+     */
+    public int deletePhones(String brand, Double maxPrice);
 }
@@ -0,0 +1,519 @@
+package com.task.crud.dao.implementation;
+
+import com.task.crud.dao.PhoneDAO;
+import com.task.crud.entity.Phone;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Встроенное хранилище объектов {@link Phone}, не требующее MySQL. Активируется профилем {@code embedded}.
+ *
+ * Данные хранятся в памяти в {@link ConcurrentHashMap}; изменения одной записи сериализуются блокировкой
+ * одного из {@value #STRIPES} сегментов, выбираемого по идентификатору. Каждое изменение сначала
+ * добавляется в активный из двух сегментов журнала {@link PhoneWriteAheadLog}. Периодически (и при заполнении
+ * сегмента) сегменты меняются местами, всё содержимое сохраняется в файл снимка, и только после этого
+ * прежний сегмент очищается. При запуске загружается снимок и поверх него воспроизводятся оба сегмента
+ * в порядке записи; записи журнала содержат итоговые значения, поэтому повтор сегмента, уже вошедшего
+ * в снимок, не меняет результата.
+ *
+ * Групповые операции применяются к записям по одной и не атомарны как целое.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-05
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedPhoneDAO implements PhoneDAO {
+
+    private static final Logger logger = LogManager.getLogger(EmbeddedPhoneDAO.class);
+
+    /**
+     * Количество сегментов блокировок, степень двойки.
+     */
+    private static final int STRIPES = 64;
+
+    private static final int SNAPSHOT_MAGIC = 0x50484E53;
+
+    private static final String SNAPSHOT_FILE = "phones.snapshot";
+
+    private static final String WAL_FILE = "phones.wal";
+
+    private final ConcurrentHashMap<Long, Phone> phones = new ConcurrentHashMap<>();
+
+    /**
+     * Индекс идентификаторов по паре бренд и модель для {@link #upsertPhones(List)}.
+     * Пара не уникальна: сохранение и изменение записей могут создать несколько телефонов с одним ключом.
+     */
+    private final ConcurrentHashMap<String, Set<Long>> idsByKey = new ConcurrentHashMap<>();
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * Последний выданный идентификатор.
+     */
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Изменения берут блокировку на чтение (совместно), снимок - на запись (исключительно) только на время
+     * копирования ссылок на записи и смены сегментов журнала, чтобы копия и сегмент не разошлись
+     * с изменениями в памяти. Сериализация и сброс снимка на диск выполняются без неё.
+     */
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * Упорядочивает создание снимков.
+     */
+    private final Object checkpointMonitor = new Object();
+
+    private final Path snapshotFile;
+
+    /**
+     * Сегмент журнала, в который добавляются изменения; заменяется под {@link #checkpointLock}.
+     */
+    private PhoneWriteAheadLog activeLog;
+
+    /**
+     * Пустой сегмент для следующего снимка либо сегмент, содержимое которого ещё не сохранено в снимке.
+     */
+    private PhoneWriteAheadLog standbyLog;
+
+    private final long snapshotIntervalSeconds;
+
+    private ScheduledExecutorService snapshotScheduler;
+
+    /**
+     * Открывает хранилище в указанном каталоге и восстанавливает данные из снимка и журнала.
+     *
+     * @param directory каталог с файлами снимка и журнала.
+     * @param walSizeBytes размер файла каждого сегмента журнала в байтах; сегмент другого размера переносится в снимок и пересоздаётся при запуске.
+     * @param walForceOnWrite сбрасывать ли каждую запись журнала на диск.
+     * @param snapshotIntervalSeconds интервал между снимками в секундах.
+     */
+    public EmbeddedPhoneDAO(@Value("${phone.embedded.directory:data}") String directory,
+                            @Value("${phone.embedded.wal-size-bytes:67108864}") int walSizeBytes,
+                            @Value("${phone.embedded.wal-force-on-write:false}") boolean walForceOnWrite,
+                            @Value("${phone.embedded.snapshot-interval-seconds:60}") long snapshotIntervalSeconds) throws IOException {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+
+        Path dataDirectory = Files.createDirectories(Paths.get(directory));
+        this.snapshotFile = dataDirectory.resolve(SNAPSHOT_FILE);
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+
+        long start = System.nanoTime();
+        readSnapshot();
+        this.activeLog = new PhoneWriteAheadLog(dataDirectory.resolve(WAL_FILE + ".0"), walSizeBytes, walForceOnWrite);
+        this.standbyLog = new PhoneWriteAheadLog(dataDirectory.resolve(WAL_FILE + ".1"), walSizeBytes, walForceOnWrite);
+        List<PhoneWriteAheadLog> segments = new ArrayList<>(List.of(activeLog, standbyLog));
+        segments.sort(Comparator.comparingLong(PhoneWriteAheadLog::getGeneration));
+        for (PhoneWriteAheadLog segment : segments) {
+            segment.replay(phone -> {
+                phones.put(phone.getId(), phone);
+                lastId.accumulateAndGet(phone.getId(), Math::max);
+            }, id -> phones.remove(id));
+        }
+        for (Phone phone : phones.values()) {
+            index(phone);
+        }
+
+        // Восстановленное состояние переносится в снимок, сегменты очищаются и приводятся к заданному размеру
+        if (!activeLog.isEmpty() || !standbyLog.isEmpty()) {
+            writeSnapshot(phones.values(), lastId.get());
+        }
+        long generation = segments.get(1).getGeneration();
+        activeLog.reset(generation + 1);
+        standbyLog.reset(generation + 2);
+
+        logger.log(Level.INFO, String.format("Embedded storage recovered %d phones in %d ms",
+                phones.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    /**
+     * Запускает периодическое создание снимков.
+     */
+    @PostConstruct
+    public void start() {
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "phone-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (RuntimeException e) {
+                logger.log(Level.ERROR, "Embedded storage snapshot failed", e);
+            }
+        }, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Останавливает создание снимков, сохраняет итоговый снимок и закрывает журнал.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdown();
+        }
+        checkpoint();
+        activeLog.close();
+        standbyLog.close();
+    }
+
+    /**
+     * Сохраняет снимок всех данных и очищает сегмент журнала, вошедший в него. Ничего не делает, если журнал пуст.
+     *
+     * Под исключительной блокировкой копируются только ссылки на записи (хранимые объекты не изменяются,
+     * а заменяются) и меняются местами сегменты; изменения, поступающие во время записи снимка,
+     * добавляются в новый активный сегмент. Если снимок не удался, прежний сегмент не очищается
+     * и следующий снимок выполняется без смены сегментов.
+     */
+    public void checkpoint() {
+        synchronized (checkpointMonitor) {
+            List<Phone> snapshot;
+            long snapshotLastId;
+            checkpointLock.writeLock().lock();
+            try {
+                if (activeLog.isEmpty() && standbyLog.isEmpty()) {
+                    return;
+                }
+                snapshot = new ArrayList<>(phones.values());
+                snapshotLastId = lastId.get();
+                if (standbyLog.isEmpty()) {
+                    PhoneWriteAheadLog sealed = activeLog;
+                    activeLog = standbyLog;
+                    standbyLog = sealed;
+                }
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+
+            try {
+                writeSnapshot(snapshot, snapshotLastId);
+                standbyLog.reset(activeLog.getGeneration() + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * {@link PhoneDAO#getAllPhones()}
+     */
+    @Override
+    public List<Phone> getAllPhones() {
+        List<Phone> result = new ArrayList<>(phones.size());
+        for (Phone phone : phones.values()) {
+            result.add(copy(phone));
+        }
+        result.sort(Comparator.comparing(Phone::getId));
+
+        return result;
+    }
+
+    /**
+     * {@link PhoneDAO#getPhone(Long)}
+     */
+    @Override
+    public Phone getPhone(Long id) {
+        Phone phone = phones.get(id);
+
+        return phone == null ? null : copy(phone);
+    }
+
+    /**
+     * {@link PhoneDAO#getPhones(Collection)}
+     */
+    @Override
+    public List<Phone> getPhones(Collection<Long> ids) {
+        List<Phone> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Phone phone = phones.get(id);
+            if (phone != null) {
+                result.add(copy(phone));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * {@link PhoneDAO#savePhone(Phone)}
+     */
+    @Override
+    public Phone savePhone(Phone phone) {
+        long id;
+        if (phone.getId() != null) {
+            id = phone.getId();
+            lastId.accumulateAndGet(id, Math::max);
+        } else {
+            id = lastId.incrementAndGet();
+        }
+        Phone stored = new Phone(id, phone.getBrand(), phone.getModel(), phone.getPrice());
+
+        apply(id, current -> stored);
+        phone.setId(id);
+
+        return phone;
+    }
+
+    /**
+     * {@link PhoneDAO#savePhones(List)}
+     */
+    @Override
+    public List<Phone> savePhones(List<Phone> phones) {
+        for (Phone phone : phones) {
+            savePhone(phone);
+        }
+
+        return phones;
+    }
+
+    /**
+     * {@link PhoneDAO#upsertPhones(List)}
+     */
+    @Override
+    public int upsertPhones(List<Phone> phones) {
+        int inserted = 0;
+        for (Phone phone : phones) {
+            if (!updateExisting(phone)) {
+                savePhone(phone);
+                inserted++;
+            }
+        }
+
+        return inserted;
+    }
+
+    /**
+     * Обновляет цену одной из записей с теми же брендом и моделью, как и другие реализации {@link PhoneDAO}.
+     * Запись могла быть изменена или удалена после чтения индекса - тогда пробуется следующая.
+     *
+     * @return {@code true}, если запись найдена и обновлена; идентификатор записи присваивается {@code phone}.
+     */
+    private boolean updateExisting(Phone phone) {
+        String key = upsertKey(phone);
+        Set<Long> ids = idsByKey.get(key);
+        if (ids == null) {
+            return false;
+        }
+
+        for (Long id : ids) {
+            if (apply(id, current -> current != null && key.equals(upsertKey(current))
+                    ? new Phone(id, current.getBrand(), current.getModel(), phone.getPrice())
+                    : current)) {
+                phone.setId(id);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@link PhoneDAO#deletePhone(Long)}
+     */
+    @Override
+    public void deletePhone(Long id) {
+        apply(id, current -> null);
+    }
+
+    /**
+     * {@link PhoneDAO#multiplyPrices(String, double)}
+     */
+    @Override
+    public int multiplyPrices(String brand, double priceMultiplier) {
+        return updateMatching(brand, null, current ->
+                new Phone(current.getId(), current.getBrand(), current.getModel(), current.getPrice() * priceMultiplier));
+    }
+
+    /**
+     * {@link PhoneDAO#setPrices(String, double)}
+     */
+    @Override
+    public int setPrices(String brand, double price) {
+        return updateMatching(brand, null, current ->
+                new Phone(current.getId(), current.getBrand(), current.getModel(), price));
+    }
+
+    /**
+     * {@link PhoneDAO#deletePhones(String, Double)}
+     */
+    @Override
+    public int deletePhones(String brand, Double maxPrice) {
+        return updateMatching(brand, maxPrice, current -> null);
+    }
+
+    /**
+     * Применяет изменение ко всем записям, удовлетворяющим критериям. Критерии перепроверяются
+     * под блокировкой записи, поскольку она могла измениться после отбора.
+     */
+    private int updateMatching(String brand, Double maxPrice, UnaryOperator<Phone> change) {
+        List<Long> candidates = new ArrayList<>();
+        for (Phone phone : phones.values()) {
+            if (matches(phone, brand, maxPrice)) {
+                candidates.add(phone.getId());
+            }
+        }
+
+        int count = 0;
+        for (Long id : candidates) {
+            if (apply(id, current -> current != null && matches(current, brand, maxPrice) ? change.apply(current) : current)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean matches(Phone phone, String brand, Double maxPrice) {
+        return (brand == null || brand.equals(phone.getBrand())) && (maxPrice == null || phone.getPrice() <= maxPrice);
+    }
+
+    /**
+     * Атомарно изменяет запись: {@code change} получает текущее значение (или {@code null}) и возвращает новое,
+     * {@code null} для удаления либо то же значение, если изменять ничего не нужно.
+     * Изменение сначала записывается в журнал, затем применяется в памяти.
+     *
+     * @return {@code true}, если запись изменилась.
+     */
+    private boolean apply(long id, UnaryOperator<Phone> change) {
+        Object stripe = stripes[Long.hashCode(id) & (STRIPES - 1)];
+
+        while (true) {
+            checkpointLock.readLock().lock();
+            try {
+                synchronized (stripe) {
+                    Phone current = phones.get(id);
+                    Phone updated = change.apply(current);
+                    if (updated == current) {
+                        return false;
+                    }
+
+                    boolean logged = updated != null ? activeLog.appendPut(updated) : activeLog.appendDelete(id);
+                    if (logged) {
+                        if (current != null) {
+                            unindex(current);
+                        }
+                        if (updated != null) {
+                            phones.put(id, updated);
+                            index(updated);
+                        } else {
+                            phones.remove(id);
+                        }
+                        return true;
+                    }
+                    if (activeLog.isEmpty()) {
+                        throw new IllegalStateException("Phone record is larger than the write-ahead log");
+                    }
+                }
+            } finally {
+                checkpointLock.readLock().unlock();
+            }
+
+            // Сегмент заполнен: сохраняем снимок, переключаемся на пустой сегмент и повторяем запись
+            checkpoint();
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Unknown snapshot format: " + snapshotFile);
+            }
+            lastId.set(in.readLong());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Phone phone = new Phone(in.readLong(), in.readUTF(), in.readUTF(), in.readDouble());
+                phones.put(phone.getId(), phone);
+            }
+        }
+    }
+
+    /**
+     * Записывает снимок во временный файл и атомарно подменяет им предыдущий.
+     */
+    private void writeSnapshot(Collection<Phone> phones, long lastId) throws IOException {
+        Path temporaryFile = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temporaryFile.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastId);
+            out.writeInt(phones.size());
+            for (Phone phone : phones) {
+                out.writeLong(phone.getId());
+                out.writeUTF(phone.getBrand());
+                out.writeUTF(phone.getModel());
+                out.writeDouble(phone.getPrice());
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void index(Phone phone) {
+        idsByKey.compute(upsertKey(phone), (key, ids) -> {
+            Set<Long> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            result.add(phone.getId());
+            return result;
+        });
+    }
+
+    /**
+     * Удаляет идентификатор из индекса; пустое множество удаляется вместе с ключом.
+     */
+    private void unindex(Phone phone) {
+        idsByKey.computeIfPresent(upsertKey(phone), (key, ids) -> {
+            ids.remove(phone.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String upsertKey(Phone phone) {
+        return phone.getBrand() + '\u0000' + phone.getModel();
+    }
+
+    private static Phone copy(Phone phone) {
+        return new Phone(phone.getId(), phone.getBrand(), phone.getModel(), phone.getPrice());
+    }
+}
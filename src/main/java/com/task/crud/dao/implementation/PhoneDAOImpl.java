@@ -2,24 +2,44 @@ package com.task.crud.dao.implementation;
 
 import com.task.crud.dao.PhoneDAO;
 import com.task.crud.entity.Phone;
+import com.task.crud.timing.RequestTiming;
 import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
 import org.hibernate.Session;
 import jakarta.persistence.Query;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Репозиторий для работы с объектами {@link Phone}.
  * Предоставляет операции для взаимодействия с таблицей базы данных "phone".
+ * Используется во всех профилях, кроме {@code embedded} и {@code sharded}.
  *
  * @author Zabnev Konstantin
  * @version 1.0
  * @since 2024-11-26
  */
 @Repository
+@Profile("!embedded & !sharded")
 public class PhoneDAOImpl implements PhoneDAO {
+    /**
+     * Максимальное количество идентификаторов в одном запросе {@code where id in (...)}.
+     */
+    private static final int IN_BATCH_SIZE = 500;
+
     /**
      * Объект EntityManager для взаимодействия с базой данных.
      */
@@ -48,10 +68,37 @@ public class PhoneDAOImpl implements PhoneDAO {
         return session.get(Phone.class, id);
     }
 
+    /**
+     * {@link PhoneDAO#getPhones(Collection)}
+     *
+     * Объекты, уже загруженные в текущую сессию, берутся из неё, остальные - запросами
+     * {@code where id in (...)} по {@value #IN_BATCH_SIZE} идентификаторов.
+     */
+    @Override
+    public List<Phone> getPhones(Collection<Long> ids) {
+        Session session = entityManager.unwrap(Session.class);
+
+        List<Phone> loaded = session.byMultipleIds(Phone.class)
+                .withBatchSize(IN_BATCH_SIZE)
+                .multiLoad(new ArrayList<>(ids));
+
+        List<Phone> phones = new ArrayList<>(loaded.size());
+        for (Phone phone : loaded) {
+            if (phone != null) {
+                phones.add(phone);
+            }
+        }
+
+        return phones;
+    }
+
     /**
      * {@link PhoneDAO#savePhone(Phone)}
+     *
+     * Присоединяется к транзакции сервиса, а при вызове вне её открывает собственную.
      */
     @Override
+    @Transactional
     public Phone savePhone(Phone phone) {
         Session session = entityManager.unwrap(Session.class);
 
@@ -61,6 +108,111 @@ public class PhoneDAOImpl implements PhoneDAO {
         return phone;
     }
 
+    /**
+     * {@link PhoneDAO#savePhones(List)}
+     *
+     * Выполняет один запрос вида {@code insert ... values (...), (...), ...}; идентификаторы
+     * берутся из сгенерированных ключей в порядке вставки строк. Запрос выполняется в обход Hibernate,
+     * поэтому учитывается в {@link RequestTiming} явно.
+     */
+    @Override
+    @Transactional
+    public List<Phone> savePhones(List<Phone> phones) {
+        if (phones.isEmpty()) {
+            return phones;
+        }
+
+        StringBuilder sql = new StringBuilder("insert into phone (brand, model, price) values ");
+        for (int i = 0; i < phones.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (Phone phone : phones) {
+                    statement.setString(index++, phone.getBrand());
+                    statement.setString(index++, phone.getModel());
+                    statement.setDouble(index++, phone.getPrice());
+                }
+                statement.executeUpdate();
+                RequestTiming.current().sqlExecuted();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Phone phone : phones) {
+                        if (!keys.next()) {
+                            throw new SQLException("Generated keys count is less than inserted rows count");
+                        }
+                        phone.setId(keys.getLong(1));
+                    }
+                }
+            }
+
+            return phones;
+        });
+    }
+
+    /**
+     * {@link PhoneDAO#upsertPhones(List)}
+     *
+     * Идентификаторы существующих записей выбираются одним запросом по брендам и моделям пачки,
+     * цены обновляются пакетным запросом JDBC, новые записи вставляются одним запросом {@link #savePhones(List)}.
+     * Сущности в сессию не загружаются: при open-in-view она живёт весь запрос импорта, и каждая
+     * загруженная пачка увеличивала бы память и время проверки изменений при каждом следующем сбросе.
+     */
+    @Override
+    @Transactional
+    public int upsertPhones(List<Phone> phones) {
+        Map<String, Phone> phonesByKey = new LinkedHashMap<>();
+        Set<String> brands = new HashSet<>();
+        Set<String> models = new HashSet<>();
+        for (Phone phone : phones) {
+            phonesByKey.put(upsertKey(phone.getBrand(), phone.getModel()), phone);
+            brands.add(phone.getBrand());
+            models.add(phone.getModel());
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+
+        List<Object[]> existingPhones = session.createQuery("select id, brand, model from Phone where brand in :brands and model in :models", Object[].class)
+                .setParameterList("brands", brands)
+                .setParameterList("models", models)
+                .getResultList();
+        List<Phone> updates = new ArrayList<>(existingPhones.size());
+        for (Object[] existing : existingPhones) {
+            Phone phone = phonesByKey.remove(upsertKey((String) existing[1], (String) existing[2]));
+            if (phone != null) {
+                phone.setId((Long) existing[0]);
+                updates.add(phone);
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("update phone set price = ? where id = ?")) {
+                    for (Phone phone : updates) {
+                        statement.setDouble(1, phone.getPrice());
+                        statement.setLong(2, phone.getId());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    RequestTiming.current().sqlExecuted();
+                }
+            });
+        }
+
+        // Ключи, для которых не нашлось записей в базе
+        savePhones(new ArrayList<>(phonesByKey.values()));
+
+        return phonesByKey.size();
+    }
+
+    private static String upsertKey(String brand, String model) {
+        return brand + '\u0000' + model;
+    }
+
     /**
      * {@link PhoneDAO#deletePhone(Long)}
      */
@@ -71,4 +223,52 @@ public class PhoneDAOImpl implements PhoneDAO {
         query.executeUpdate();
     }
 
+    /**
+     * {@link PhoneDAO#multiplyPrices(String, double)}
+     */
+    @Override
+    public int multiplyPrices(String brand, double priceMultiplier) {
+        Query query = entityManager.createQuery("update Phone set price = price * :priceMultiplier where brand = :brand");
+        query.setParameter("priceMultiplier", priceMultiplier);
+        query.setParameter("brand", brand);
+
+        return query.executeUpdate();
+    }
+
+    /**
+     * {@link PhoneDAO#setPrices(String, double)}
+     */
+    @Override
+    public int setPrices(String brand, double price) {
+        Query query = entityManager.createQuery("update Phone set price = :price where brand = :brand");
+        query.setParameter("price", price);
+        query.setParameter("brand", brand);
+
+        return query.executeUpdate();
+    }
+
+    /**
+     * {@link PhoneDAO#deletePhones(String, Double)}
+     */
+    @Override
+    public int deletePhones(String brand, Double maxPrice) {
+        StringBuilder jpql = new StringBuilder("delete from Phone where 1 = 1");
+        if (brand != null) {
+            jpql.append(" and brand = :brand");
+        }
+        if (maxPrice != null) {
+            jpql.append(" and price <= :maxPrice");
+        }
+
+        Query query = entityManager.createQuery(jpql.toString());
+        if (brand != null) {
+            query.setParameter("brand", brand);
+        }
+        if (maxPrice != null) {
+            query.setParameter("maxPrice", maxPrice);
+        }
+
+        return query.executeUpdate();
+    }
+
 }
@@ -0,0 +1,226 @@
+package com.task.crud.dao.implementation;
+
+import com.task.crud.entity.Phone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Сегмент журнала упреждающей записи (WAL) для {@link EmbeddedPhoneDAO}, расположенный в отображённом в память файле.
+ *
+ * Файл начинается с {@code long} номера поколения, задаваемого при очистке ({@link #reset(long)}): по нему
+ * восстанавливается порядок воспроизведения нескольких сегментов. Формат записи: {@code [int длина тела][тело][int CRC32 тела]}, где тело - {@code [byte операция][long id]}
+ * и для операции {@link #PUT} дополнительно {@code [int длина brand][brand][int длина model][model][double price]}.
+ * Сразу за последней записью всегда находится {@code int 0}, поэтому чтение журнала останавливается
+ * на первой нулевой длине или на первой записи с неверной контрольной суммой (оборванная запись).
+ *
+ * Существующий файл другого размера отображается целиком, чтобы прочитать все его записи,
+ * и приводится к заданному размеру при следующей очистке ({@link #reset(long)}).
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-05
+ */
+public class PhoneWriteAheadLog implements Closeable {
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    /**
+     * Размер служебных полей записи: длина тела и контрольная сумма.
+     */
+    private static final int FRAME_OVERHEAD = Integer.BYTES * 2;
+
+    /**
+     * Размер заголовка файла с номером поколения.
+     */
+    private static final int HEADER_SIZE = Long.BYTES;
+
+    private final FileChannel channel;
+
+    private final int capacity;
+
+    private MappedByteBuffer buffer;
+
+    private final boolean forceOnWrite;
+
+    private final CRC32 crc = new CRC32();
+
+    private long generation;
+
+    /**
+     * Смещение, с которого будет записана следующая запись.
+     */
+    private int position;
+
+    /**
+     * Открывает (или создаёт) файл журнала и отображает его в память.
+     *
+     * @param file путь к файлу журнала.
+     * @param capacity размер файла журнала в байтах, устанавливаемый при очистке.
+     * @param forceOnWrite сбрасывать ли каждую запись на диск; иначе запись переживает падение процесса, но не ОС.
+     */
+    public PhoneWriteAheadLog(Path file, int capacity, boolean forceOnWrite) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size() > 0 ? channel.size() : capacity);
+        this.forceOnWrite = forceOnWrite;
+        this.generation = buffer.getLong(0);
+        this.position = HEADER_SIZE;
+    }
+
+    /**
+     * Последовательно передаёт все корректные записи журнала обработчикам и устанавливает
+     * позицию записи сразу за последней из них.
+     *
+     * @param onPut обработчик записи о сохранении телефона.
+     * @param onDelete обработчик записи об удалении телефона по идентификатору.
+     */
+    public synchronized void replay(Consumer<Phone> onPut, LongConsumer onDelete) {
+        int offset = HEADER_SIZE;
+        while (offset + FRAME_OVERHEAD <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + FRAME_OVERHEAD + length > buffer.capacity()) {
+                break;
+            }
+
+            byte[] body = new byte[length];
+            buffer.get(offset + Integer.BYTES, body);
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES + length)) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(body);
+            byte operation = record.get();
+            long id = record.getLong();
+            if (operation == PUT) {
+                String brand = readString(record);
+                String model = readString(record);
+                onPut.accept(new Phone(id, brand, model, record.getDouble()));
+            } else if (operation == DELETE) {
+                onDelete.accept(id);
+            } else {
+                break;
+            }
+
+            offset += FRAME_OVERHEAD + length;
+        }
+
+        position = offset;
+    }
+
+    /**
+     * Добавляет в журнал запись о сохранении телефона.
+     *
+     * @param phone сохраняемый объект {@link Phone} с идентификатором.
+     * @return {@code false}, если в журнале недостаточно места и требуется {@link #reset(long)}.
+     */
+    public synchronized boolean appendPut(Phone phone) {
+        byte[] brand = phone.getBrand().getBytes(StandardCharsets.UTF_8);
+        byte[] model = phone.getModel().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer body = ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES * 2 + brand.length + model.length + Double.BYTES);
+        body.put(PUT).putLong(phone.getId());
+        body.putInt(brand.length).put(brand);
+        body.putInt(model.length).put(model);
+        body.putDouble(phone.getPrice());
+
+        return append(body.array());
+    }
+
+    /**
+     * Добавляет в журнал запись об удалении телефона.
+     *
+     * @param id идентификатор удаляемого телефона.
+     * @return {@code false}, если в журнале недостаточно места и требуется {@link #reset(long)}.
+     */
+    public synchronized boolean appendDelete(long id) {
+        return append(ByteBuffer.allocate(1 + Long.BYTES).put(DELETE).putLong(id).array());
+    }
+
+    /**
+     * @return {@code true}, если с момента последнего {@link #reset(long)} в журнал ничего не записано.
+     */
+    public synchronized boolean isEmpty() {
+        return position == HEADER_SIZE;
+    }
+
+    /**
+     * @return номер поколения, заданный при последней очистке; сегмент с большим номером записан позже.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Очищает журнал. Вызывается после того, как всё его содержимое надёжно сохранено в снимке.
+     *
+     * @param generation новый номер поколения сегмента.
+     */
+    public synchronized void reset(long generation) throws IOException {
+        if (buffer.capacity() != capacity) {
+            // Старое отображение не используется после усечения файла
+            if (channel.size() > capacity) {
+                channel.truncate(capacity);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        // Сначала терминатор: сегмент со старым номером и без записей безопасен при воспроизведении
+        buffer.putInt(HEADER_SIZE, 0);
+        buffer.putLong(0, generation);
+        buffer.force(0, HEADER_SIZE + Integer.BYTES);
+        this.generation = generation;
+        position = HEADER_SIZE;
+    }
+
+    /**
+     * Сбрасывает журнал на диск и закрывает файл.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private boolean append(byte[] body) {
+        // Оставляем место под нулевой терминатор после записи
+        int size = FRAME_OVERHEAD + body.length;
+        if (position + size + Integer.BYTES > buffer.capacity()) {
+            return false;
+        }
+
+        crc.reset();
+        crc.update(body, 0, body.length);
+
+        // Длина пишется последней: до этого момента запись невидима для replay
+        buffer.putInt(position + size, 0);
+        buffer.put(position + Integer.BYTES, body);
+        buffer.putInt(position + Integer.BYTES + body.length, (int) crc.getValue());
+        buffer.putInt(position, body.length);
+
+        if (forceOnWrite) {
+            buffer.force(position, size + Integer.BYTES);
+        }
+        position += size;
+
+        return true;
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,554 @@
+package com.task.crud.dao.implementation;
+
+import com.task.crud.dao.PhoneDAO;
+import com.task.crud.entity.Phone;
+import com.task.crud.timing.RequestTiming;
+import com.task.crud.timing.SqlCountingJdbcTemplate;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Репозиторий, распределяющий объекты {@link Phone} по нескольким базам данных (шардам).
+ * Активируется профилем {@code sharded}; шарды задаются свойством {@code phone.sharding.urls}.
+ *
+ * Идентификатор телефона содержит номер шарда в младших {@value #SHARD_BITS} битах и локальный
+ * идентификатор строки в таблице шарда в старших: {@code id = localId << SHARD_BITS | shard}.
+ * Операции с одной записью направляются в один шард, а выборки и групповые операции выполняются
+ * параллельно на всех шардах с последующим слиянием результатов: первый шард обрабатывает вызывающий
+ * поток, остальные - общий пул, размер которого равен суммарному размеру их пулов соединений.
+ *
+ * Новые записи распределяются по шардам по кругу; пачка {@link #savePhones(List)} целиком
+ * попадает в один шард, чтобы остаться одной атомарной вставкой.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-09
+ */
+@Repository
+@Profile("sharded")
+public class ShardedPhoneDAO implements PhoneDAO {
+    /**
+     * Количество младших битов идентификатора, отведённых под номер шарда.
+     */
+    static final int SHARD_BITS = 8;
+
+    private static final long SHARD_MASK = (1L << SHARD_BITS) - 1;
+
+    /**
+     * Максимальное количество идентификаторов в одном запросе {@code where id in (...)}.
+     */
+    private static final int IN_BATCH_SIZE = 500;
+
+    /**
+     * Количество строк, получаемых из курсора шарда за одно обращение к базе данных.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Размер пула соединений шарда, если его нельзя определить по источнику данных.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 10;
+
+    private final List<DataSource> dataSources;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+
+    private final List<NamedParameterJdbcTemplate> namedShards = new ArrayList<>();
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    /**
+     * Создаёт пулы соединений к шардам по настройкам приложения.
+     *
+     * @param urls JDBC URL шардов в порядке их номеров.
+     * @param username имя пользователя баз данных.
+     * @param password пароль пользователя баз данных.
+     */
+    @Autowired
+    public ShardedPhoneDAO(@Value("${phone.sharding.urls}") List<String> urls,
+                           @Value("${phone.sharding.username}") String username,
+                           @Value("${phone.sharding.password}") String password) {
+        this(urls.stream()
+                .<DataSource>map(url -> DataSourceBuilder.create().url(url).username(username).password(password).build())
+                .toList());
+    }
+
+    /**
+     * Создаёт репозиторий поверх готовых источников данных.
+     *
+     * @param dataSources источники данных шардов в порядке их номеров.
+     */
+    public ShardedPhoneDAO(List<DataSource> dataSources) {
+        if (dataSources.isEmpty() || dataSources.size() > SHARD_MASK + 1) {
+            throw new IllegalArgumentException("Number of shards must be between 1 and " + (SHARD_MASK + 1));
+        }
+
+        this.dataSources = dataSources;
+        for (DataSource dataSource : dataSources) {
+            JdbcTemplate jdbcTemplate = new SqlCountingJdbcTemplate(dataSource);
+            shards.add(jdbcTemplate);
+            namedShards.add(new NamedParameterJdbcTemplate(jdbcTemplate));
+        }
+
+        // Больше потоков, чем соединений, всё равно будут ждать пула соединений
+        int threads = 0;
+        for (int i = 1; i < dataSources.size(); i++) {
+            threads += maxConnections(dataSources.get(i));
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "phone-shard-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Останавливает пул потоков и закрывает пулы соединений к шардам.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        executor.shutdown();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static int maxConnections(DataSource dataSource) {
+        return dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : DEFAULT_MAX_CONNECTIONS;
+    }
+
+    /**
+     * {@link PhoneDAO#getAllPhones()}
+     *
+     * Запросы к шардам выполняются параллельно, после чего строки читаются из открытых курсоров
+     * порциями по {@value #FETCH_SIZE} и сливаются в общий упорядоченный по идентификатору список
+     * без промежуточных списков для каждого шарда.
+     */
+    @Override
+    public List<Phone> getAllPhones() {
+        String sql = "select id, brand, model, price from phone order by id";
+
+        List<ShardCursor> cursors = new ArrayList<>(shards.size());
+        try {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                cursors.add(new ShardCursor(shard, dataSources.get(shard)));
+            }
+            scatter((shard, jdbcTemplate) -> {
+                try {
+                    cursors.get(shard).open(sql);
+                } catch (SQLException e) {
+                    throw translate(shard, sql, e);
+                }
+                return null;
+            });
+
+            return mergeById(cursors);
+        } catch (SQLException e) {
+            throw translate(0, sql, e);
+        } finally {
+            cursors.forEach(ShardCursor::close);
+        }
+    }
+
+    /**
+     * {@link PhoneDAO#getPhone(Long)}
+     */
+    @Override
+    public Phone getPhone(Long id) {
+        int shard = shardOf(id);
+        if (shard >= shards.size()) {
+            return null;
+        }
+
+        List<Phone> phones = shards.get(shard).query("select id, brand, model, price from phone where id = ?",
+                phoneRowMapper(shard), localIdOf(id));
+
+        return phones.isEmpty() ? null : phones.get(0);
+    }
+
+    /**
+     * {@link PhoneDAO#getPhones(Collection)}
+     *
+     * Идентификаторы группируются по шардам; каждый шард опрашивается параллельно
+     * запросами {@code where id in (...)} по {@value #IN_BATCH_SIZE} идентификаторов.
+     */
+    @Override
+    public List<Phone> getPhones(Collection<Long> ids) {
+        List<List<Long>> localIds = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            localIds.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            int shard = shardOf(id);
+            if (shard < shards.size()) {
+                localIds.get(shard).add(localIdOf(id));
+            }
+        }
+
+        List<List<Phone>> shardPhones = scatter((shard, jdbcTemplate) -> {
+            List<Long> shardIds = localIds.get(shard);
+            List<Phone> phones = new ArrayList<>(shardIds.size());
+            for (int from = 0; from < shardIds.size(); from += IN_BATCH_SIZE) {
+                List<Long> chunk = shardIds.subList(from, Math.min(from + IN_BATCH_SIZE, shardIds.size()));
+                phones.addAll(namedShards.get(shard).query("select id, brand, model, price from phone where id in (:ids)",
+                        Map.of("ids", chunk), phoneRowMapper(shard)));
+            }
+            return phones;
+        });
+
+        List<Phone> result = new ArrayList<>();
+        shardPhones.forEach(result::addAll);
+
+        return result;
+    }
+
+    /**
+     * {@link PhoneDAO#savePhone(Phone)}
+     */
+    @Override
+    public Phone savePhone(Phone phone) {
+        if (phone.getId() == null) {
+            return savePhones(List.of(phone)).get(0);
+        }
+
+        int shard = shardOf(phone.getId());
+        shards.get(shard).update("update phone set brand = ?, model = ?, price = ? where id = ?",
+                phone.getBrand(), phone.getModel(), phone.getPrice(), localIdOf(phone.getId()));
+
+        return phone;
+    }
+
+    /**
+     * {@link PhoneDAO#savePhones(List)}
+     */
+    @Override
+    public List<Phone> savePhones(List<Phone> phones) {
+        if (phones.isEmpty()) {
+            return phones;
+        }
+
+        int shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+
+        StringBuilder sql = new StringBuilder("insert into phone (brand, model, price) values ");
+        for (int i = 0; i < phones.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+
+        return shards.get(shard).execute((ConnectionCallback<List<Phone>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+                int index = 1;
+                for (Phone phone : phones) {
+                    statement.setString(index++, phone.getBrand());
+                    statement.setString(index++, phone.getModel());
+                    statement.setDouble(index++, phone.getPrice());
+                }
+                statement.executeUpdate();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Phone phone : phones) {
+                        if (!keys.next()) {
+                            throw new SQLException("Generated keys count is less than inserted rows count");
+                        }
+                        phone.setId(globalId(shard, keys.getLong(1)));
+                    }
+                }
+            }
+
+            return phones;
+        });
+    }
+
+    /**
+     * {@link PhoneDAO#upsertPhones(List)}
+     *
+     * Существующие записи ищутся параллельно на всех шардах и обновляются пакетным запросом
+     * в своём шарде; новые записи вставляются одной пачкой в очередной шард.
+     * Атомарность соблюдается только в пределах одного шарда.
+     */
+    @Override
+    public int upsertPhones(List<Phone> phones) {
+        Map<String, Phone> phonesByKey = new LinkedHashMap<>();
+        Set<String> brands = new HashSet<>();
+        Set<String> models = new HashSet<>();
+        for (Phone phone : phones) {
+            phonesByKey.put(upsertKey(phone.getBrand(), phone.getModel()), phone);
+            brands.add(phone.getBrand());
+            models.add(phone.getModel());
+        }
+
+        List<List<Phone>> existingPhones = scatter((shard, jdbcTemplate) ->
+                namedShards.get(shard).query("select id, brand, model, price from phone where brand in (:brands) and model in (:models)",
+                        Map.of("brands", brands, "models", models), phoneRowMapper(shard)));
+
+        List<List<Object[]>> updates = new ArrayList<>(shards.size());
+        for (List<Phone> shardPhones : existingPhones) {
+            List<Object[]> shardUpdates = new ArrayList<>();
+            for (Phone existing : shardPhones) {
+                Phone phone = phonesByKey.remove(upsertKey(existing.getBrand(), existing.getModel()));
+                if (phone != null) {
+                    phone.setId(existing.getId());
+                    shardUpdates.add(new Object[]{phone.getPrice(), localIdOf(existing.getId())});
+                }
+            }
+            updates.add(shardUpdates);
+        }
+
+        scatter((shard, jdbcTemplate) -> updates.get(shard).isEmpty()
+                ? null
+                : jdbcTemplate.batchUpdate("update phone set price = ? where id = ?", updates.get(shard)));
+
+        // Ключи, для которых не нашлось записей ни в одном шарде
+        savePhones(new ArrayList<>(phonesByKey.values()));
+
+        return phonesByKey.size();
+    }
+
+    private static String upsertKey(String brand, String model) {
+        return brand + '\u0000' + model;
+    }
+
+    /**
+     * {@link PhoneDAO#deletePhone(Long)}
+     */
+    @Override
+    public void deletePhone(Long id) {
+        int shard = shardOf(id);
+        if (shard < shards.size()) {
+            shards.get(shard).update("delete from phone where id = ?", localIdOf(id));
+        }
+    }
+
+    /**
+     * {@link PhoneDAO#multiplyPrices(String, double)}
+     */
+    @Override
+    public int multiplyPrices(String brand, double priceMultiplier) {
+        return sum(scatter((shard, jdbcTemplate) ->
+                jdbcTemplate.update("update phone set price = price * ? where brand = ?", priceMultiplier, brand)));
+    }
+
+    /**
+     * {@link PhoneDAO#setPrices(String, double)}
+     */
+    @Override
+    public int setPrices(String brand, double price) {
+        return sum(scatter((shard, jdbcTemplate) ->
+                jdbcTemplate.update("update phone set price = ? where brand = ?", price, brand)));
+    }
+
+    /**
+     * {@link PhoneDAO#deletePhones(String, Double)}
+     */
+    @Override
+    public int deletePhones(String brand, Double maxPrice) {
+        StringBuilder sql = new StringBuilder("delete from phone where 1 = 1");
+        List<Object> args = new ArrayList<>(2);
+        if (brand != null) {
+            sql.append(" and brand = ?");
+            args.add(brand);
+        }
+        if (maxPrice != null) {
+            sql.append(" and price <= ?");
+            args.add(maxPrice);
+        }
+
+        return sum(scatter((shard, jdbcTemplate) -> jdbcTemplate.update(sql.toString(), args.toArray())));
+    }
+
+    /**
+     * Выполняет операцию параллельно на всех шардах: первый шард - в вызывающем потоке,
+     * остальные - в пуле. Дожидается всех шардов, даже если какой-то из них завершился ошибкой.
+     * SQL-запросы потоков пула учитываются в {@link RequestTiming} вызывающего потока.
+     *
+     * @param operation операция, получающая номер шарда и его {@link JdbcTemplate}.
+     * @return результаты операции в порядке номеров шардов.
+     */
+    private <T> List<T> scatter(BiFunction<Integer, JdbcTemplate, T> operation) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        AtomicInteger sqlCount = new AtomicInteger();
+        futures.add(null);
+        for (int i = 1; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                RequestTiming timing = RequestTiming.current();
+                timing.startSqlCapture();
+                try {
+                    return operation.apply(shard, shards.get(shard));
+                } finally {
+                    sqlCount.addAndGet(timing.finishSqlCapture());
+                }
+            }, executor));
+        }
+        try {
+            futures.set(0, CompletableFuture.completedFuture(operation.apply(0, shards.get(0))));
+        } catch (RuntimeException e) {
+            futures.set(0, CompletableFuture.failedFuture(e));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+                results.add(null);
+            }
+        }
+        RequestTiming.current().addSqlCount(sqlCount.get());
+        if (failure != null) {
+            throw failure;
+        }
+
+        return results;
+    }
+
+    private DataAccessException translate(int shard, String sql, SQLException e) {
+        DataAccessException translated = shards.get(shard).getExceptionTranslator().translate("Sharded query", sql, e);
+        return translated != null ? translated : new UncategorizedSQLException("Sharded query", sql, e);
+    }
+
+    /**
+     * Сливает упорядоченные по идентификатору курсоры шардов в один упорядоченный список.
+     * Идентификаторы одного шарда упорядочены так же, как их локальные идентификаторы.
+     */
+    private static List<Phone> mergeById(List<ShardCursor> shardCursors) throws SQLException {
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(shardCursors.size(),
+                Comparator.comparingLong((ShardCursor cursor) -> cursor.current().getId()));
+        for (ShardCursor cursor : shardCursors) {
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        List<Phone> merged = new ArrayList<>();
+        while (!cursors.isEmpty()) {
+            ShardCursor cursor = cursors.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * Открытый курсор по упорядоченной выборке одного шарда и его текущая строка.
+     */
+    private static final class ShardCursor {
+        private final int shard;
+        private final DataSource dataSource;
+        private final Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private Phone current;
+
+        private ShardCursor(int shard, DataSource dataSource) {
+            this.shard = shard;
+            this.dataSource = dataSource;
+            this.connection = DataSourceUtils.getConnection(dataSource);
+        }
+
+        private void open(String sql) throws SQLException {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            resultSet = statement.executeQuery();
+            RequestTiming.current().sqlExecuted();
+        }
+
+        private Phone current() {
+            return current;
+        }
+
+        private boolean advance() throws SQLException {
+            if (resultSet == null || !resultSet.next()) {
+                return false;
+            }
+            current = mapPhone(resultSet, shard);
+            return true;
+        }
+
+        private void close() {
+            JdbcUtils.closeResultSet(resultSet);
+            JdbcUtils.closeStatement(statement);
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static int sum(List<Integer> counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static RowMapper<Phone> phoneRowMapper(int shard) {
+        return (resultSet, rowNum) -> mapPhone(resultSet, shard);
+    }
+
+    private static Phone mapPhone(ResultSet resultSet, int shard) throws SQLException {
+        return new Phone(globalId(shard, resultSet.getLong("id")),
+                resultSet.getString("brand"),
+                resultSet.getString("model"),
+                resultSet.getDouble("price"));
+    }
+
+    static long globalId(int shard, long localId) {
+        return localId << SHARD_BITS | shard;
+    }
+
+    static int shardOf(long id) {
+        return (int) (id & SHARD_MASK);
+    }
+
+    static long localIdOf(long id) {
+        return id >>> SHARD_BITS;
+    }
+}
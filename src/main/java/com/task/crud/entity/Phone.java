@@ -4,16 +4,19 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Сущность Phone.
  * Используется для маппинга с таблицей phone в базе данных.
+ * Запрос UPDATE формируется только по изменённым колонкам ({@link DynamicUpdate}).
  *
  * @author Zabnev Konstantin
  * @version 1.0
  * @since 2024-11-26
  */
 @Entity
+@DynamicUpdate
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
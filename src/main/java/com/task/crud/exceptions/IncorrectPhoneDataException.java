@@ -1,7 +1,10 @@
 package com.task.crud.exceptions;
 
+/**
+ * Выбрасывается при некорректных данных запроса (HTTP 400). Трассировка стека не заполняется.
+ */
 public class IncorrectPhoneDataException extends RuntimeException {
     public IncorrectPhoneDataException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -1,7 +1,12 @@
 package com.task.crud.exceptions;
 
+/**
+ * Выбрасывается, если телефон с запрошенным идентификатором не найден (HTTP 404).
+ * Создаётся без трассировки стека и подавленных исключений: перебор случайных идентификаторов
+ * не должен стоить заполнения стека на каждый запрос.
+ */
 public class NoSuchPhoneException extends RuntimeException {
     public NoSuchPhoneException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,11 @@
+package com.task.crud.exceptions;
+
+/**
+ * Выбрасывается, если запрос временно не может быть принят из-за перегрузки или остановки
+ * (HTTP 503), например при переполненной очереди групповой фиксации. Трассировка стека не заполняется.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,14 @@
+package com.task.crud.response_templates;
+
+import com.task.crud.entity.Phone;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+public class PhoneBatchResponse {
+    private List<Phone> phones;
+    private List<Long> missingIds;
+}
@@ -0,0 +1,25 @@
+package com.task.crud.response_templates;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+public class PhoneImportReport {
+    private long totalRows;
+    private long insertedRows;
+    private long updatedRows;
+    private long rejectedRows;
+    private List<RejectedRow> rejected;
+    private long durationMillis;
+    private long rowsPerSecond;
+
+    @AllArgsConstructor
+    @Data
+    public static class RejectedRow {
+        private long lineNumber;
+        private String reason;
+    }
+}
@@ -0,0 +1,36 @@
+package com.task.crud.service;
+
+import com.task.crud.entity.Phone;
+import com.task.crud.response_templates.PhoneImportReport;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Интерфейс массового импорта объектов {@link Phone} из CSV.
+ *
+ * Ожидаемый формат строки: {@code brand,model,price}; первая строка может быть заголовком.
+ * Поля могут заключаться в двойные кавычки и в этом случае содержать запятые и переводы строк.
+ * Пара бренд и модель служит ключом: у существующих телефонов обновляется цена, отсутствующие добавляются.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-12
+ */
+public interface PhoneImportService {
+    /**
+     * Импортирует телефоны из потока CSV, не загружая его в память целиком.
+     *
+     * @param channel канал с содержимым CSV в кодировке UTF-8.
+     * @return отчёт о количестве обработанных, добавленных, обновлённых и отклонённых строк.
+     */
+    public PhoneImportReport importPhones(ReadableByteChannel channel);
+
+    /**
+     * Импортирует телефоны из CSV-файла.
+     *
+     * @param file путь к файлу CSV в кодировке UTF-8.
+     * @return отчёт о количестве обработанных, добавленных, обновлённых и отклонённых строк.
+     */
+    public PhoneImportReport importPhones(Path file);
+}
@@ -5,6 +5,7 @@ import com.task.crud.exceptions.IncorrectPhoneDataException;
 import com.task.crud.exceptions.NoSuchPhoneException;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Интерфейс для предоставления методов работы с объектами {@link Phone} в рамках бизнес-логики приложения.
@@ -33,6 +34,15 @@ public interface PhoneService {
      */
     public Phone getPhone(Long id);
 
+    /**
+     * Возвращает телефоны по списку идентификаторов.
+     *
+     * @param ids идентификаторы телефонов; повторы допускаются.
+     * @return список той же длины и в том же порядке, что и {@code ids}; на месте отсутствующих телефонов - {@code null}.
+     * @exception IncorrectPhoneDataException выбрасывается, если список пуст, слишком велик или содержит {@code null}.
+     */
+    public List<Phone> getPhones(List<Long> ids);
+
     /**
      * Сохраняет новую запись в базе данных.
      *
@@ -52,6 +62,18 @@ public interface PhoneService {
      */
     public Phone updatePhone(Long id, Phone phone);
 
+    /**
+     * Частично обновляет запись по семантике JSON Merge Patch (RFC 7396).
+     * Валидируются только переданные поля; если значения не изменились, запись в базу не выполняется.
+     *
+     * @param id идентификатор обновляемого объекта {@link Phone}.
+     * @param patch изменяемые поля ({@code brand}, {@code model}, {@code price}) и их новые значения.
+     * @return обновлённый объект {@link Phone}.
+     * @exception NoSuchPhoneException выбрасывается, если в базе не найдена запись с передаваемым идентификатором
+     * @exception IncorrectPhoneDataException выбрасывается, если переданные поля некорректны.
+     */
+    public Phone patchPhone(Long id, Map<String, Object> patch);
+
     /**
      * Удаляет телефон по его идентификатору.
      *
@@ -59,4 +81,27 @@ public interface PhoneService {
      * @exception NoSuchPhoneException выбрасывается, если в базе не найдена запись с передаваемым идентификатором
      */
     public void deletePhone(Long id);
+
+    /**
+     * Изменяет цену всех телефонов бренда одним запросом: умножает её на {@code priceMultiplier}
+     * либо устанавливает равной {@code price}. Должен быть передан ровно один из этих параметров.
+     *
+     * @param brand бренд телефонов.
+     * @param priceMultiplier множитель цены или {@code null}.
+     * @param price новая цена или {@code null}.
+     * @return количество изменённых записей.
+     * @exception IncorrectPhoneDataException выбрасывается, если параметры некорректны.
+     */
+    public int updatePhonesPrice(String brand, Double priceMultiplier, Double price);
+
+    /**
+     * Удаляет все телефоны, удовлетворяющие критериям, одним запросом.
+     * Должен быть передан хотя бы один критерий.
+     *
+     * @param brand бренд телефонов или {@code null}.
+     * @param maxPrice максимальная цена (включительно) или {@code null}.
+     * @return количество удалённых записей.
+     * @exception IncorrectPhoneDataException выбрасывается, если критерии не переданы или некорректны.
+     */
+    public int deletePhones(String brand, Double maxPrice);
 }
@@ -0,0 +1,285 @@
+package com.task.crud.service.implementation;
+
+import com.task.crud.dao.PhoneDAO;
+import com.task.crud.entity.Phone;
+import com.task.crud.exceptions.ServiceUnavailableException;
+import com.task.crud.timing.RequestTiming;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Групповая фиксация вставок новых объектов {@link Phone}.
+ *
+ * Конкурентные вызовы {@link #submit(Phone)} ставятся в очередь, а фоновый поток сбрасывает их
+ * в базу данных одной многострочной вставкой ({@link PhoneDAO#savePhones(List)}) в одной транзакции,
+ * как только накопится {@code phone.group-commit.max-batch-size} записей или пройдёт
+ * {@code phone.group-commit.max-delay-micros} микросекунд с момента поступления первой из них.
+ * Каждый вызывающий поток получает свой сгенерированный идентификатор или своё исключение.
+ * Ожидание в очереди ограничено {@code phone.group-commit.submit-timeout-millis} миллисекунд, после чего
+ * запись отзывается и вызывающий получает {@link ServiceUnavailableException}; запись, уже взятая в пачку,
+ * ожидает фактического результата вставки, чтобы повтор запроса клиентом не создал дубликат.
+ * Если фоновый поток завершился, все записи, оставшиеся в очереди, завершаются исключением. Время вставки в фоновом потоке
+ * и количество выполненных им SQL-запросов возвращаются вызывающему и учитываются в его {@link RequestTiming}.
+ *
+ * Режим выключен по умолчанию и включается свойством {@code phone.group-commit.enabled=true}.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-02
+ */
+@Component
+public class PhoneGroupCommitter {
+
+    private static final Logger logger = LogManager.getLogger(PhoneGroupCommitter.class);
+
+    /**
+     * Время ожидания первой записи в пустой очереди, после которого поток проверяет флаг остановки.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    @Value("${phone.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${phone.group-commit.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${phone.group-commit.max-delay-micros:500}")
+    private long maxDelayMicros;
+
+    @Value("${phone.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${phone.group-commit.submit-timeout-millis:5000}")
+    private long submitTimeoutMillis;
+
+    /**
+     * Репозиторий для работы с объектами {@link Phone} на уровне доступа к данным.
+     *
+     * @see PhoneDAO
+     */
+    @Autowired
+    private PhoneDAO phoneDAO;
+
+    private BlockingQueue<PendingPhone> queue;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    /**
+     * Запись, ожидающая групповой вставки, результат для вызывающего потока, а также время и количество
+     * SQL-запросов, затраченные на её вставку (вместе с остальной пачкой) в фоновом потоке.
+     */
+    private record PendingPhone(Phone phone, CompletableFuture<Phone> result, AtomicLong dbNanos, AtomicInteger sqlCount) {
+    }
+
+    /**
+     * Запускает фоновый поток сброса очереди, если режим групповой фиксации включён.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::runFlusher, "phone-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Останавливает фоновый поток, предварительно сбросив в базу все записи, оставшиеся в очереди.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join();
+        }
+    }
+
+    /**
+     * @return {@code true}, если включён режим групповой фиксации.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит телефон в очередь на групповую вставку и ожидает её завершения.
+     *
+     * @param phone провалидированный объект {@link Phone} без идентификатора.
+     * @return сохранённый объект {@link Phone} с присвоенным идентификатором.
+     */
+    public Phone submit(Phone phone) {
+        if (!running) {
+            throw new ServiceUnavailableException("Group commit is not running");
+        }
+
+        PendingPhone pending = new PendingPhone(phone, new CompletableFuture<>(), new AtomicLong(), new AtomicInteger());
+        try {
+            try {
+                if (!queue.offer(pending, submitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new ServiceUnavailableException("Group commit queue is full");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted while waiting for group commit queue");
+            }
+            // Поток сброса мог завершиться между проверкой флага и постановкой в очередь
+            if (!running && queue.remove(pending)) {
+                throw new ServiceUnavailableException("Group commit is not running");
+            }
+
+            try {
+                return pending.result().get(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                // Запись, ещё не взятая в пачку, отзывается; взятая - может быть вставлена, поэтому ждём результата
+                if (queue.remove(pending)) {
+                    throw new ServiceUnavailableException("Group commit did not start in " + submitTimeoutMillis + " ms");
+                }
+                return pending.result().join();
+            }
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Group commit failed", e.getCause());
+        } finally {
+            RequestTiming timing = RequestTiming.current();
+            timing.addDaoTime(pending.dbNanos().get());
+            timing.addSqlCount(pending.sqlCount().get());
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingPhone> batch = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingPhone first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+
+                    // Добираем записи до заполнения пачки или истечения задержки с момента первой записи
+                    long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        PendingPhone next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) {
+                            queue.drainTo(batch, maxBatchSize - batch.size());
+                            break;
+                        }
+                        batch.add(next);
+                    }
+
+                    flush(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    flush(batch);
+                    return;
+                } finally {
+                    failAll(batch);
+                    batch.clear();
+                }
+            }
+        } catch (Throwable e) {
+            logger.log(Level.ERROR, "Group commit flusher failed", e);
+            throw e;
+        } finally {
+            // Новые записи больше не принимаются, оставшиеся в очереди не будут вставлены
+            running = false;
+            queue.drainTo(batch);
+            failAll(batch);
+        }
+    }
+
+    /**
+     * Завершает исключением ожидание всех записей, результат которых ещё не получен.
+     */
+    private static void failAll(List<PendingPhone> batch) {
+        for (PendingPhone pending : batch) {
+            if (!pending.result().isDone()) {
+                pending.result().completeExceptionally(new ServiceUnavailableException("Group commit is not running"));
+            }
+        }
+    }
+
+    private void flush(List<PendingPhone> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Phone> phones = new ArrayList<>(batch.size());
+        for (PendingPhone pending : batch) {
+            phones.add(pending.phone());
+        }
+
+        RequestTiming timing = RequestTiming.current();
+        timing.startSqlCapture();
+        long start = System.nanoTime();
+        try {
+            List<Phone> saved = phoneDAO.savePhones(phones);
+            addDbUsage(batch, System.nanoTime() - start, timing.finishSqlCapture());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            addDbUsage(batch, System.nanoTime() - start, timing.finishSqlCapture());
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+
+            // Пачка откатилась целиком: повторяем вставки по одной, чтобы ошибку получил только виновный вызов
+            logger.log(Level.WARN, String.format("Group commit of %d phones failed (%s), retrying one by one",
+                    batch.size(), e.getClass().getSimpleName()));
+            for (PendingPhone pending : batch) {
+                pending.phone().setId(null);
+                timing.startSqlCapture();
+                long singleStart = System.nanoTime();
+                try {
+                    Phone saved = phoneDAO.savePhone(pending.phone());
+                    addDbUsage(List.of(pending), System.nanoTime() - singleStart, timing.finishSqlCapture());
+                    pending.result().complete(saved);
+                } catch (RuntimeException single) {
+                    addDbUsage(List.of(pending), System.nanoTime() - singleStart, timing.finishSqlCapture());
+                    pending.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private static void addDbUsage(List<PendingPhone> batch, long nanos, int sqlCount) {
+        for (PendingPhone pending : batch) {
+            pending.dbNanos().addAndGet(nanos);
+            pending.sqlCount().addAndGet(sqlCount);
+        }
+    }
+}
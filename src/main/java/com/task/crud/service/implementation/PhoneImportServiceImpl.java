@@ -0,0 +1,326 @@
+package com.task.crud.service.implementation;
+
+import com.task.crud.dao.PhoneDAO;
+import com.task.crud.entity.Phone;
+import com.task.crud.exceptions.IncorrectPhoneDataException;
+import com.task.crud.response_templates.PhoneImportReport;
+import com.task.crud.response_templates.PhoneImportReport.RejectedRow;
+import com.task.crud.service.PhoneImportService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис потокового импорта объектов {@link Phone} из CSV.
+ *
+ * Строки читаются из канала пачками по {@code phone.import.batch-size}; разбор и валидация пачек
+ * выполняются параллельно, а запись - последовательно в порядке файла, по одной транзакции на пачку
+ * ({@link PhoneDAO#upsertPhones(List)}). Поле в кавычках может содержать переводы строк: такая запись
+ * собирается из нескольких строк файла и в отчёте указывается номером первой из них. Если собранная запись
+ * некорректна (например, из-за одиночной кавычки), отклоняется только первая строка, а остальные
+ * разбираются как отдельные записи. Одновременно в памяти находится не более
+ * {@code phone.import.max-in-flight-batches} пачек, поэтому потребление памяти не зависит от размера файла.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-12
+ */
+@Service
+public class PhoneImportServiceImpl implements PhoneImportService {
+
+    private static final String HEADER = "brand,model,price";
+
+    /**
+     * Максимальная длина записи, продолжающейся на нескольких строках; незакрытая кавычка
+     * не должна поглотить остаток файла.
+     */
+    private static final int MAX_RECORD_LENGTH = 4096;
+
+    @Value("${phone.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${phone.import.max-in-flight-batches:16}")
+    private int maxInFlightBatches;
+
+    /**
+     * Количество потоков разбора; {@code 0} - по числу процессоров.
+     */
+    @Value("${phone.import.parallelism:0}")
+    private int parallelism;
+
+    @Value("${phone.import.max-reported-rejects:100}")
+    private int maxReportedRejects;
+
+    /**
+     * Репозиторий для работы с объектами {@link Phone} на уровне доступа к данным.
+     *
+     * @see PhoneDAO
+     */
+    @Autowired
+    private PhoneDAO phoneDAO;
+
+    private ExecutorService parseExecutor;
+
+    /**
+     * Пачка строк файла и их номера.
+     */
+    private record RawBatch(long[] lineNumbers, List<String> lines) {
+    }
+
+    /**
+     * Результат разбора пачки: корректные телефоны и отклонённые строки.
+     */
+    private record ParsedBatch(List<Phone> phones, List<RejectedRow> rejected) {
+    }
+
+    /**
+     * Создаёт пул потоков для разбора и валидации строк.
+     */
+    @PostConstruct
+    public void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        parseExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "phone-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Останавливает пул потоков разбора.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        parseExecutor.shutdown();
+        parseExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * {@link PhoneImportService#importPhones(Path)}
+     */
+    @Override
+    public PhoneImportReport importPhones(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importPhones(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@link PhoneImportService#importPhones(ReadableByteChannel)}
+     */
+    @Override
+    public PhoneImportReport importPhones(ReadableByteChannel channel) {
+        long start = System.nanoTime();
+        long totalRows = 0;
+        long insertedRows = 0;
+        long writtenRows = 0;
+        long rejectedRows = 0;
+        List<RejectedRow> rejected = new ArrayList<>();
+
+        Deque<CompletableFuture<ParsedBatch>> inFlight = new ArrayDeque<>(maxInFlightBatches);
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), 1 << 16);
+        // Строки продолжения отвергнутой многострочной записи, которые читаются повторно
+        Deque<String> unread = new ArrayDeque<>();
+
+        try {
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(batchSize);
+            long[] lineNumbers = new long[batchSize];
+            String line;
+            boolean eof = false;
+
+            while (!eof) {
+                line = readLine(reader, unread);
+                eof = line == null;
+                if (!eof) {
+                    lineNumber++;
+                    long recordLineNumber = lineNumber;
+                    if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                        line = line.substring(1);
+                    }
+                    // Незакрытая кавычка: запись продолжается на следующей строке
+                    if (quoteCount(line) % 2 != 0) {
+                        StringBuilder record = new StringBuilder(line);
+                        List<String> continuation = new ArrayList<>();
+                        boolean open = true;
+                        String next;
+                        while (open && record.length() < MAX_RECORD_LENGTH && (next = readLine(reader, unread)) != null) {
+                            continuation.add(next);
+                            record.append('\n').append(next);
+                            open = quoteCount(next) % 2 == 0;
+                        }
+                        if (isValidRecord(record.toString())) {
+                            line = record.toString();
+                            lineNumber += continuation.size();
+                        } else {
+                            // Одиночная кавычка не должна поглотить следующие строки: они читаются заново
+                            for (int i = continuation.size() - 1; i >= 0; i--) {
+                                unread.addFirst(continuation.get(i));
+                            }
+                        }
+                    }
+                    // Пропуск заголовка и пустых строк
+                    if (line.isBlank() || (lineNumber == 1 && HEADER.equalsIgnoreCase(line.strip()))) {
+                        continue;
+                    }
+                    totalRows++;
+                    lineNumbers[lines.size()] = recordLineNumber;
+                    lines.add(line);
+                }
+
+                if (lines.size() == batchSize || (eof && !lines.isEmpty())) {
+                    RawBatch batch = new RawBatch(lineNumbers, lines);
+                    inFlight.addLast(CompletableFuture.supplyAsync(() -> parseBatch(batch), parseExecutor));
+                    lines = new ArrayList<>(batchSize);
+                    lineNumbers = new long[batchSize];
+                }
+
+                // Запись готовых пачек по порядку, пока их в памяти больше допустимого
+                while (inFlight.size() >= maxInFlightBatches || (eof && !inFlight.isEmpty())) {
+                    ParsedBatch parsed = join(inFlight.removeFirst());
+                    if (!parsed.phones().isEmpty()) {
+                        insertedRows += phoneDAO.upsertPhones(parsed.phones());
+                        writtenRows += parsed.phones().size();
+                    }
+                    rejectedRows += parsed.rejected().size();
+                    for (RejectedRow row : parsed.rejected()) {
+                        if (rejected.size() < maxReportedRejects) {
+                            rejected.add(row);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+
+        long durationNanos = Math.max(System.nanoTime() - start, 1);
+        return new PhoneImportReport(totalRows, insertedRows, writtenRows - insertedRows, rejectedRows, rejected,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                totalRows * TimeUnit.SECONDS.toNanos(1) / durationNanos);
+    }
+
+    private static ParsedBatch join(CompletableFuture<ParsedBatch> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String readLine(BufferedReader reader, Deque<String> unread) throws IOException {
+        return unread.isEmpty() ? reader.readLine() : unread.removeFirst();
+    }
+
+    private static boolean isValidRecord(String record) {
+        try {
+            PhoneValidator.validatePhoneData(parsePhone(record));
+            return true;
+        } catch (IncorrectPhoneDataException e) {
+            return false;
+        }
+    }
+
+    private static int quoteCount(String line) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static ParsedBatch parseBatch(RawBatch batch) {
+        List<Phone> phones = new ArrayList<>(batch.lines().size());
+        List<RejectedRow> rejected = new ArrayList<>();
+
+        for (int i = 0; i < batch.lines().size(); i++) {
+            try {
+                Phone phone = parsePhone(batch.lines().get(i));
+                PhoneValidator.validatePhoneData(phone);
+                phones.add(phone);
+            } catch (IncorrectPhoneDataException e) {
+                rejected.add(new RejectedRow(batch.lineNumbers()[i], e.getMessage()));
+            }
+        }
+
+        return new ParsedBatch(phones, rejected);
+    }
+
+    /**
+     * Разбирает запись {@code brand,model,price}; поля могут быть заключены в двойные кавычки,
+     * кавычка внутри такого поля удваивается, а переводы строк сохраняются.
+     */
+    static Phone parsePhone(String line) throws IncorrectPhoneDataException {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        if (quoted || fields.size() != 3) {
+            throw new IncorrectPhoneDataException("Expected 3 columns: " + HEADER);
+        }
+
+        double price;
+        try {
+            price = Double.parseDouble(fields.get(2).strip());
+        } catch (NumberFormatException e) {
+            throw new IncorrectPhoneDataException("Incorrect value for 'price'");
+        }
+        if (!Double.isFinite(price)) {
+            throw new IncorrectPhoneDataException("Incorrect value for 'price'");
+        }
+
+        return new Phone(null, fields.get(0).strip(), fields.get(1).strip(), price);
+    }
+}
@@ -9,7 +9,13 @@ import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+
+import static com.task.crud.service.implementation.PhoneValidator.*;
 
 
 /**
@@ -23,6 +29,11 @@ import java.util.List;
 @Service
 @Transactional
 public class PhoneServiceImpl implements PhoneService {
+    /**
+     * Максимальное количество идентификаторов в одном запросе {@link #getPhones(List)}.
+     */
+    private static final int MAX_BATCH_IDS = 1000;
+
     /**
      * Репозиторий для работы с объектами {@link Phone} на уровне доступа к данным.
      *
@@ -31,23 +42,13 @@ public class PhoneServiceImpl implements PhoneService {
     @Autowired
     private PhoneDAO phoneDAO;
 
-    private void validatePhoneData(Phone phone) throws IncorrectPhoneDataException {
-        if (phone == null) {
-            throw new IncorrectPhoneDataException("Phone cannot be null");
-        }
-        if (phone.getId() != null) {
-            throw new IncorrectPhoneDataException("Undefined property 'id'");
-        }
-        if (phone.getModel() == null || phone.getModel().isEmpty() || phone.getModel().length() > 256) {
-            throw new IncorrectPhoneDataException("Incorrect value for 'model'");
-        }
-        if (phone.getBrand() == null || phone.getBrand().isEmpty() || phone.getBrand().length() > 256) {
-            throw new IncorrectPhoneDataException("Incorrect value for 'brand'");
-        }
-        if (phone.getPrice() < 0) {
-            throw new IncorrectPhoneDataException("Incorrect value for 'price'");
-        }
-    }
+    /**
+     * Групповая фиксация вставок, используемая в {@link #addPhone(Phone)}, если она включена.
+     *
+     * @see PhoneGroupCommitter
+     */
+    @Autowired
+    private PhoneGroupCommitter phoneGroupCommitter;
 
     /**
      * {@link PhoneService#getAllPhones()}
@@ -72,14 +73,50 @@ public class PhoneServiceImpl implements PhoneService {
         return phone;
     }
 
+    /**
+     * {@link PhoneService#getPhones(List)}
+     */
+    @Override
+    public List<Phone> getPhones(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_IDS) {
+            throw new IncorrectPhoneDataException("Number of 'ids' must be between 1 and " + MAX_BATCH_IDS);
+        }
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IncorrectPhoneDataException("Incorrect value for 'ids'");
+            }
+        }
+
+        Map<Long, Phone> phonesById = new HashMap<>();
+        for (Phone phone : phoneDAO.getPhones(new LinkedHashSet<>(ids))) {
+            phonesById.put(phone.getId(), phone);
+        }
+
+        // Восстановление порядка запроса, отсутствующие телефоны остаются null
+        List<Phone> phones = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            phones.add(phonesById.get(id));
+        }
+
+        return phones;
+    }
+
     /**
      * {@link PhoneService#addPhone(Phone)}
+     *
+     * Выполняется вне транзакции сервиса: запись открывает транзакцию сама, а при групповой фиксации
+     * ожидающий поток не удерживает соединение с базой данных.
      */
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public Phone addPhone(Phone phone) {
         // Валидация данных
         validatePhoneData(phone);
 
+        if (phoneGroupCommitter.isEnabled()) {
+            return phoneGroupCommitter.submit(phone);
+        }
+
         return phoneDAO.savePhone(phone);
     }
 
@@ -101,6 +138,62 @@ public class PhoneServiceImpl implements PhoneService {
         return phoneDAO.savePhone(oldPhone);
     }
 
+    /**
+     * {@link PhoneService#patchPhone(Long, Map)}
+     */
+    @Override
+    public Phone patchPhone(Long id, Map<String, Object> patch) {
+        if (patch == null) {
+            throw new IncorrectPhoneDataException("Patch cannot be null");
+        }
+
+        // Получение из базы объекта, который будет обновлен
+        Phone phone = getPhone(id);
+        boolean changed = false;
+
+        // Валидация и применение только переданных полей
+        for (Map.Entry<String, Object> field : patch.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "brand" -> {
+                    String brand = value instanceof String str ? str : null;
+                    validateBrand(brand);
+                    if (!brand.equals(phone.getBrand())) {
+                        phone.setBrand(brand);
+                        changed = true;
+                    }
+                }
+                case "model" -> {
+                    String model = value instanceof String str ? str : null;
+                    validateModel(model);
+                    if (!model.equals(phone.getModel())) {
+                        phone.setModel(model);
+                        changed = true;
+                    }
+                }
+                case "price" -> {
+                    if (!(value instanceof Number number)) {
+                        throw new IncorrectPhoneDataException("Incorrect value for 'price'");
+                    }
+                    double price = number.doubleValue();
+                    validatePrice(price);
+                    if (Double.compare(price, phone.getPrice()) != 0) {
+                        phone.setPrice(price);
+                        changed = true;
+                    }
+                }
+                default -> throw new IncorrectPhoneDataException("Undefined property '" + field.getKey() + "'");
+            }
+        }
+
+        // Значения не изменились - запись в базу не нужна
+        if (!changed) {
+            return phone;
+        }
+
+        return phoneDAO.savePhone(phone);
+    }
+
     /**
      * {@link PhoneService#deletePhone(Long)}
      */
@@ -111,4 +204,45 @@ public class PhoneServiceImpl implements PhoneService {
 
         phoneDAO.deletePhone(id);
     }
+
+    /**
+     * {@link PhoneService#updatePhonesPrice(String, Double, Double)}
+     */
+    @Override
+    public int updatePhonesPrice(String brand, Double priceMultiplier, Double price) {
+        // Валидация данных
+        validateBrand(brand);
+        if ((priceMultiplier == null) == (price == null)) {
+            throw new IncorrectPhoneDataException("Exactly one of 'priceMultiplier' and 'price' must be specified");
+        }
+
+        if (priceMultiplier != null) {
+            if (priceMultiplier < 0 || priceMultiplier.isNaN() || priceMultiplier.isInfinite()) {
+                throw new IncorrectPhoneDataException("Incorrect value for 'priceMultiplier'");
+            }
+            return phoneDAO.multiplyPrices(brand, priceMultiplier);
+        }
+
+        validatePrice(price);
+        return phoneDAO.setPrices(brand, price);
+    }
+
+    /**
+     * {@link PhoneService#deletePhones(String, Double)}
+     */
+    @Override
+    public int deletePhones(String brand, Double maxPrice) {
+        // Удаление без критериев очистило бы всю таблицу
+        if (brand == null && maxPrice == null) {
+            throw new IncorrectPhoneDataException("At least one of 'brand' and 'maxPrice' must be specified");
+        }
+        if (brand != null) {
+            validateBrand(brand);
+        }
+        if (maxPrice != null && maxPrice.isNaN()) {
+            throw new IncorrectPhoneDataException("Incorrect value for 'maxPrice'");
+        }
+
+        return phoneDAO.deletePhones(brand, maxPrice);
+    }
 }
@@ -0,0 +1,50 @@
+package com.task.crud.service.implementation;
+
+import com.task.crud.entity.Phone;
+import com.task.crud.exceptions.IncorrectPhoneDataException;
+
+/**
+ * Проверки данных объектов {@link Phone}, общие для {@link PhoneServiceImpl} и {@link PhoneImportServiceImpl}.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-12
+ */
+final class PhoneValidator {
+
+    private PhoneValidator() {
+    }
+
+    /**
+     * Проверяет данные нового телефона.
+     */
+    static void validatePhoneData(Phone phone) throws IncorrectPhoneDataException {
+        if (phone == null) {
+            throw new IncorrectPhoneDataException("Phone cannot be null");
+        }
+        if (phone.getId() != null) {
+            throw new IncorrectPhoneDataException("Undefined property 'id'");
+        }
+        validateModel(phone.getModel());
+        validateBrand(phone.getBrand());
+        validatePrice(phone.getPrice());
+    }
+
+    static void validateModel(String model) throws IncorrectPhoneDataException {
+        if (model == null || model.isEmpty() || model.length() > 256) {
+            throw new IncorrectPhoneDataException("Incorrect value for 'model'");
+        }
+    }
+
+    static void validateBrand(String brand) throws IncorrectPhoneDataException {
+        if (brand == null || brand.isEmpty() || brand.length() > 256) {
+            throw new IncorrectPhoneDataException("Incorrect value for 'brand'");
+        }
+    }
+
+    static void validatePrice(double price) throws IncorrectPhoneDataException {
+        if (price < 0 || !Double.isFinite(price)) {
+            throw new IncorrectPhoneDataException("Incorrect value for 'price'");
+        }
+    }
+}
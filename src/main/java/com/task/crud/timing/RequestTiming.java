@@ -0,0 +1,261 @@
+package com.task.crud.timing;
+
+import java.util.Locale;
+
+/**
+ * Замеры фаз обработки текущего HTTP-запроса.
+ *
+ * Один экземпляр на поток создаётся при первом обращении и затем переиспользуется, поэтому замеры
+ * на пути обработки запроса не создают объектов. Фазы:
+ * <ul>
+ *     <li>{@code bind} - от входа в фильтр до вызова метода контроллера (разбор запроса и связывание аргументов);</li>
+ *     <li>{@code app} - время в сервисе за вычетом доступа к данным (валидация и бизнес-логика);</li>
+ *     <li>{@code db} - время в репозитории и количество SQL-запросов: подготовленных Hibernate
+ *     ({@link SqlCountingStatementInspector}), шардами ({@link SqlCountingJdbcTemplate}) и выполненных
+ *     репозиториями напрямую через JDBC; пакет запросов считается одним запросом. Сюда же входят время
+ *     и запросы групповой вставки, выполненной потоком {@code PhoneGroupCommitter} от имени запроса,
+ *     и запросы к шардам из пула потоков ({@link #addDaoTime(long)}, {@link #addSqlCount(int)}),
+ *     а ожидание своей очереди в пачке остаётся в {@code app};</li>
+ *     <li>{@code handler} - от вызова метода контроллера до начала записи ответа;</li>
+ *     <li>{@code serialization} - запись тела ответа (JSON); известна только после отправки заголовков,
+ *     поэтому попадает лишь в журнал медленных запросов.</li>
+ * </ul>
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-18
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = ThreadLocal.withInitial(RequestTiming::new);
+
+    private boolean active;
+
+    private long requestStart;
+
+    private boolean handlerStarted;
+
+    private long handlerStart;
+
+    private boolean bodyWriteStarted;
+
+    private long bodyWriteStart;
+
+    private int serviceDepth;
+
+    private long serviceStart;
+
+    private long serviceNanos;
+
+    private int daoDepth;
+
+    private long daoStart;
+
+    private long daoNanos;
+
+    private int sqlCount;
+
+    private boolean capturingSql;
+
+    private final StringBuilder header = new StringBuilder(128);
+
+    private RequestTiming() {
+    }
+
+    /**
+     * @return замеры запроса, обрабатываемого текущим потоком.
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return {@code true}, если текущий поток обрабатывает HTTP-запрос.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    void start(long now) {
+        active = true;
+        requestStart = now;
+        handlerStarted = false;
+        bodyWriteStarted = false;
+        serviceDepth = 0;
+        serviceNanos = 0;
+        daoDepth = 0;
+        daoNanos = 0;
+        sqlCount = 0;
+    }
+
+    void finish() {
+        active = false;
+    }
+
+    /**
+     * Отмечает вызов метода контроллера.
+     */
+    public void handlerStarted(long now) {
+        if (active && !handlerStarted) {
+            handlerStarted = true;
+            handlerStart = now;
+        }
+    }
+
+    /**
+     * Отмечает вход в метод сервиса; вложенные вызовы не учитываются повторно.
+     */
+    public void enterService(long now) {
+        if (active && serviceDepth++ == 0) {
+            serviceStart = now;
+        }
+    }
+
+    /**
+     * Отмечает выход из метода сервиса.
+     */
+    public void exitService(long now) {
+        if (active && --serviceDepth == 0) {
+            serviceNanos += now - serviceStart;
+        }
+    }
+
+    /**
+     * Отмечает вход в метод репозитория; вложенные вызовы не учитываются повторно.
+     */
+    public void enterDao(long now) {
+        if (active && daoDepth++ == 0) {
+            daoStart = now;
+        }
+    }
+
+    /**
+     * Отмечает выход из метода репозитория.
+     */
+    public void exitDao(long now) {
+        if (active && --daoDepth == 0) {
+            daoNanos += now - daoStart;
+        }
+    }
+
+    /**
+     * Учитывает время доступа к данным, выполненного другим потоком от имени текущего запроса.
+     */
+    public void addDaoTime(long nanos) {
+        if (active && daoDepth == 0) {
+            daoNanos += nanos;
+        }
+    }
+
+    /**
+     * Учитывает один выполненный SQL-запрос.
+     */
+    public void sqlExecuted() {
+        if (active || capturingSql) {
+            sqlCount++;
+        }
+    }
+
+    /**
+     * Учитывает SQL-запросы, выполненные другим потоком от имени текущего запроса.
+     */
+    public void addSqlCount(int count) {
+        if (active || capturingSql) {
+            sqlCount += count;
+        }
+    }
+
+    /**
+     * Начинает подсчёт SQL-запросов в потоке, выполняющем работу от имени запроса другого потока
+     * (пул шардов, групповая вставка). В потоке, обрабатывающем запрос, ничего не делает:
+     * его запросы учитываются как обычно.
+     */
+    public void startSqlCapture() {
+        if (!active) {
+            capturingSql = true;
+            sqlCount = 0;
+        }
+    }
+
+    /**
+     * Завершает подсчёт, начатый {@link #startSqlCapture()}.
+     *
+     * @return количество SQL-запросов с начала подсчёта для передачи в {@link #addSqlCount(int)}.
+     */
+    public int finishSqlCapture() {
+        if (!capturingSql) {
+            return 0;
+        }
+        capturingSql = false;
+        return sqlCount;
+    }
+
+    void bodyWriteStarted(long now) {
+        if (active && !bodyWriteStarted) {
+            bodyWriteStarted = true;
+            bodyWriteStart = now;
+        }
+    }
+
+    /**
+     * Формирует значение заголовка {@code Server-Timing} для фаз, завершившихся к моменту {@code now}.
+     */
+    String serverTimingHeader(long now) {
+        header.setLength(0);
+        appendMetric("bind", bindNanos(now));
+        header.append(", ");
+        appendMetric("app", Math.max(serviceNanos - daoNanos, 0));
+        header.append(", ");
+        appendMetric("db", daoNanos);
+        header.append(";desc=\"").append(sqlCount).append(" sql\"");
+        header.append(", ");
+        appendMetric("handler", handlerStarted ? now - handlerStart : 0);
+        header.append(", ");
+        appendMetric("total", now - requestStart);
+        return header.toString();
+    }
+
+    /**
+     * Формирует строку с полной разбивкой по фазам для журнала медленных запросов.
+     */
+    String describe(long end) {
+        long serialization = bodyWriteStarted ? end - bodyWriteStart : 0;
+        long handler = handlerStarted ? (bodyWriteStarted ? bodyWriteStart : end) - handlerStart : 0;
+        return String.format(Locale.ROOT, "total=%.3fms bind=%.3fms app=%.3fms db=%.3fms sql=%d handler=%.3fms serialization=%.3fms",
+                millis(end - requestStart),
+                millis(bindNanos(end)),
+                millis(Math.max(serviceNanos - daoNanos, 0)),
+                millis(daoNanos),
+                sqlCount,
+                millis(handler),
+                millis(serialization));
+    }
+
+    long elapsedNanos(long now) {
+        return now - requestStart;
+    }
+
+    private long bindNanos(long now) {
+        return (handlerStarted ? handlerStart : now) - requestStart;
+    }
+
+    /**
+     * Добавляет метрику {@code name;dur=<мс>} с точностью до микросекунды без форматирования строк.
+     */
+    private void appendMetric(String name, long nanos) {
+        long micros = nanos / 1000;
+        long fraction = micros % 1000;
+        header.append(name).append(";dur=").append(micros / 1000).append('.');
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
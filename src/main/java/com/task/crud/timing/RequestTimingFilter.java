@@ -0,0 +1,61 @@
+package com.task.crud.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр, открывающий замеры {@link RequestTiming} для каждого HTTP-запроса и записывающий запросы,
+ * обработка которых заняла больше {@code phone.timing.slow-request-threshold-ms} миллисекунд,
+ * в отдельный журнал медленных запросов.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-18
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger slowRequestLogger = LogManager.getLogger("com.task.crud.timing.SlowRequests");
+
+    private long slowRequestThresholdNanos;
+
+    @Value("${phone.timing.slow-request-threshold-ms:500}")
+    public void setSlowRequestThresholdMillis(long slowRequestThresholdMillis) {
+        this.slowRequestThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMillis);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.current();
+        timing.start(System.nanoTime());
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            if (timing.elapsedNanos(end) >= slowRequestThresholdNanos) {
+                slowRequestLogger.log(Level.WARN, String.format("%s %s -> %d: %s",
+                        request.getMethod(),
+                        request.getRequestURI(),
+                        response.getStatus(),
+                        timing.describe(end)));
+            }
+            timing.finish();
+        }
+    }
+}
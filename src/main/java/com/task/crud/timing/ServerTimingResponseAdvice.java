@@ -0,0 +1,40 @@
+package com.task.crud.timing;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет к ответу заголовок {@code Server-Timing} с замерами {@link RequestTiming} непосредственно
+ * перед сериализацией тела ответа, пока заголовки ещё не отправлены.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-18
+ */
+@ControllerAdvice
+public class ServerTimingResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing.isActive()) {
+            long now = System.nanoTime();
+            response.getHeaders().set("Server-Timing", timing.serverTimingHeader(now));
+            timing.bodyWriteStarted(now);
+        }
+
+        return body;
+    }
+}
@@ -0,0 +1,29 @@
+package com.task.crud.timing;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@link JdbcTemplate}, подсчитывающий SQL-запросы в рамках текущего HTTP-запроса, как
+ * {@link SqlCountingStatementInspector} для Hibernate. Учитывается каждый созданный шаблоном оператор,
+ * в том числе подготовленный внутри {@link org.springframework.jdbc.core.ConnectionCallback}.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-18
+ */
+public class SqlCountingJdbcTemplate extends JdbcTemplate {
+
+    public SqlCountingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement statement) throws SQLException {
+        super.applyStatementSettings(statement);
+        RequestTiming.current().sqlExecuted();
+    }
+}
@@ -0,0 +1,20 @@
+package com.task.crud.timing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Подсчитывает SQL-запросы, подготовленные Hibernate в рамках текущего HTTP-запроса.
+ * Подключается свойством {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ *
+ * @author Zabnev Konstantin
+ * @version 1.0
+ * @since 2024-12-18
+ */
+public class SqlCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestTiming.current().sqlExecuted();
+        return sql;
+    }
+}
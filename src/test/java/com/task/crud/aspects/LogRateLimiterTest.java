@@ -0,0 +1,38 @@
+package com.task.crud.aspects;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+    @Test
+    void testLimitPerWindowAndSuppressedCount() {
+        LogRateLimiter limiter = new LogRateLimiter(2);
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire(now));
+        assertEquals(0, limiter.tryAcquire(now + 1));
+        assertEquals(-1, limiter.tryAcquire(now + 2));
+        assertEquals(-1, limiter.tryAcquire(now + 3));
+
+        // Новое окно: первое разрешённое сообщение сообщает о подавленных
+        long nextWindow = now + TimeUnit.SECONDS.toNanos(1);
+        assertEquals(2, limiter.tryAcquire(nextWindow));
+        assertEquals(0, limiter.tryAcquire(nextWindow + 1));
+        assertEquals(-1, limiter.tryAcquire(nextWindow + 2));
+    }
+
+    @Test
+    void testInstancesAreIndependent() {
+        LogRateLimiter first = new LogRateLimiter(1);
+        LogRateLimiter second = new LogRateLimiter(1);
+        long now = System.nanoTime();
+
+        assertEquals(0, first.tryAcquire(now));
+        assertEquals(-1, first.tryAcquire(now + 1));
+        assertEquals(0, second.tryAcquire(now + 1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.task.crud.controller;
+
+import com.task.crud.exceptions.IncorrectPhoneDataException;
+import com.task.crud.exceptions.NoSuchPhoneException;
+import com.task.crud.exceptions.ServiceUnavailableException;
+import com.task.crud.service.PhoneImportService;
+import com.task.crud.service.PhoneService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class RestExceptionHandlerTest {
+    @Mock
+    private PhoneService phoneService;
+
+    @Mock
+    private PhoneImportService phoneImportService;
+
+    @InjectMocks
+    private MainRestController mainRestController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RestExceptionHandler restExceptionHandler = new RestExceptionHandler();
+        restExceptionHandler.setMaxErrorsPerSecond(10);
+        mockMvc = MockMvcBuilders.standaloneSetup(mainRestController)
+                .setControllerAdvice(restExceptionHandler)
+                .build();
+    }
+
+    @Test
+    void testNoSuchPhone() throws Exception {
+        when(phoneService.getPhone(42L)).thenThrow(new NoSuchPhoneException("There is no phone with 'id' = 42"));
+
+        mockMvc.perform(get("/api/phones/42"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.statusCode").value(404))
+                .andExpect(jsonPath("$.data").value("There is no phone with 'id' = 42"));
+    }
+
+    @Test
+    void testIncorrectPhoneData() throws Exception {
+        when(phoneService.addPhone(any())).thenThrow(new IncorrectPhoneDataException("Incorrect value for 'price'"));
+
+        mockMvc.perform(post("/api/phones")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"brand\":\"Apple\",\"model\":\"iPhone 14\",\"price\":-1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.statusCode").value(400))
+                .andExpect(jsonPath("$.data").value("Incorrect value for 'price'"));
+    }
+
+    @Test
+    void testMalformedRequest() throws Exception {
+        mockMvc.perform(post("/api/phones")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"brand\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data").value("Malformed request"));
+
+        mockMvc.perform(get("/api/phones/abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data").value("Malformed request"));
+        verifyNoInteractions(phoneService);
+    }
+
+    @Test
+    void testConflict() throws Exception {
+        when(phoneService.deletePhones("Apple", null)).thenThrow(new DataIntegrityViolationException("constraint"));
+
+        mockMvc.perform(delete("/api/phones").param("brand", "Apple"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.statusCode").value(409));
+    }
+
+    @Test
+    void testMvcExceptionKeepsItsStatus() throws Exception {
+        mockMvc.perform(put("/api/phones"))
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(jsonPath("$.statusCode").value(405));
+    }
+
+    @Test
+    void testServiceUnavailable() throws Exception {
+        when(phoneService.addPhone(any())).thenThrow(new ServiceUnavailableException("Group commit queue is full"));
+
+        mockMvc.perform(post("/api/phones")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"brand\":\"Apple\",\"model\":\"iPhone 14\",\"price\":999.99}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.statusCode").value(503))
+                .andExpect(jsonPath("$.data").value("Group commit queue is full"));
+    }
+
+    @Test
+    void testUnexpectedException() throws Exception {
+        when(phoneService.getAllPhones()).thenThrow(new IllegalStateException("Connection pool exhausted"));
+
+        mockMvc.perform(get("/api/phones"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.statusCode").value(500))
+                .andExpect(jsonPath("$.data").value("Internal server error"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.task.crud.dao.implementation;
+
+import com.task.crud.entity.Phone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedPhoneDAOTest {
+    @TempDir
+    Path directory;
+
+    private EmbeddedPhoneDAO phoneDAO;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        phoneDAO = open(64 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        phoneDAO.close();
+    }
+
+    private EmbeddedPhoneDAO open(int walSizeBytes) throws IOException {
+        return new EmbeddedPhoneDAO(directory.toString(), walSizeBytes, false, 60);
+    }
+
+    @Test
+    void testSaveAndGetPhone() {
+        Phone saved = phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+
+        assertEquals(1L, saved.getId());
+        assertEquals(saved, phoneDAO.getPhone(1L));
+        assertNull(phoneDAO.getPhone(2L));
+    }
+
+    @Test
+    void testReturnedPhoneIsCopy() {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+
+        phoneDAO.getPhone(1L).setPrice(1.0);
+
+        assertEquals(999.99, phoneDAO.getPhone(1L).getPrice());
+    }
+
+    @Test
+    void testBulkOperations() {
+        phoneDAO.savePhones(List.of(
+                new Phone(null, "Apple", "iPhone 14", 1000.0),
+                new Phone(null, "Apple", "iPhone 12", 500.0),
+                new Phone(null, "Samsung", "Galaxy S23", 900.0)
+        ));
+
+        assertEquals(2, phoneDAO.multiplyPrices("Apple", 0.5));
+        assertEquals(250.0, phoneDAO.getPhone(2L).getPrice());
+        assertEquals(1, phoneDAO.deletePhones("Apple", 300.0));
+        assertEquals(List.of(1L, 3L), phoneDAO.getAllPhones().stream().map(Phone::getId).toList());
+    }
+
+    @Test
+    void testRecoveryFromWriteAheadLog() throws IOException {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+        phoneDAO.setPrices("Samsung", 799.99);
+        phoneDAO.deletePhone(1L);
+
+        // Открытие без закрытия предыдущего экземпляра имитирует падение процесса до снимка
+        EmbeddedPhoneDAO recovered = open(64 * 1024);
+        try {
+            assertEquals(List.of(new Phone(2L, "Samsung", "Galaxy S23", 799.99)), recovered.getAllPhones());
+            assertEquals(3L, recovered.savePhone(new Phone(null, "Google", "Pixel 8", 799.99)).getId());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void testRecoveryFromSnapshotWhenLogOverflows() throws IOException {
+        phoneDAO.close();
+        phoneDAO = open(256);
+
+        for (int i = 0; i < 50; i++) {
+            phoneDAO.savePhone(new Phone(null, "Apple", "iPhone " + i, i));
+        }
+
+        assertTrue(Files.exists(directory.resolve("phones.snapshot")));
+
+        EmbeddedPhoneDAO recovered = open(256);
+        try {
+            assertEquals(50, recovered.getAllPhones().size());
+            assertEquals("iPhone 49", recovered.getPhone(50L).getModel());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void testRecoveryFromSnapshotAndNewSegment() throws IOException {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+        phoneDAO.checkpoint();
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+        phoneDAO.deletePhone(1L);
+
+        EmbeddedPhoneDAO recovered = open(64 * 1024);
+        try {
+            assertEquals(List.of(new Phone(2L, "Samsung", "Galaxy S23", 899.99)), recovered.getAllPhones());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    /**
+     * Меняет сегменты и не даёт записать снимок: на месте временного файла создаётся каталог.
+     */
+    private Path failCheckpoint() throws IOException {
+        Path temporaryFile = Files.createDirectory(directory.resolve("phones.snapshot.tmp"));
+        assertThrows(UncheckedIOException.class, phoneDAO::checkpoint);
+        return temporaryFile;
+    }
+
+    @Test
+    void testRecoveryAfterFailedCheckpoint() throws IOException {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+        phoneDAO.checkpoint();
+        phoneDAO.setPrices("Apple", 949.99);
+        Path temporaryFile = failCheckpoint();
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+
+        // Прежний сегмент не очищен: изменение цены восстанавливается вместе с записью из нового сегмента
+        Files.delete(temporaryFile);
+        EmbeddedPhoneDAO recovered = open(64 * 1024);
+        try {
+            assertEquals(List.of(
+                    new Phone(1L, "Apple", "iPhone 14", 949.99),
+                    new Phone(2L, "Samsung", "Galaxy S23", 899.99)
+            ), recovered.getAllPhones());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void testCheckpointAfterFailedCheckpoint() throws IOException {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+        Files.delete(failCheckpoint());
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+
+        phoneDAO.checkpoint();
+        phoneDAO.deletePhone(1L);
+        phoneDAO.checkpoint();
+        phoneDAO.savePhone(new Phone(null, "Google", "Pixel 8", 799.99));
+
+        EmbeddedPhoneDAO recovered = open(64 * 1024);
+        try {
+            assertEquals(List.of(
+                    new Phone(2L, "Samsung", "Galaxy S23", 899.99),
+                    new Phone(3L, "Google", "Pixel 8", 799.99)
+            ), recovered.getAllPhones());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    void testWriteAheadLogResizedToConfiguredSize() throws IOException {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+
+        // Журнал большего размера с записями: содержимое переносится в снимок, файлы сегментов усекаются
+        EmbeddedPhoneDAO resized = new EmbeddedPhoneDAO(directory.toString(), 1024, false, 60);
+        try {
+            assertEquals(1024, Files.size(directory.resolve("phones.wal.0")));
+            assertEquals(1024, Files.size(directory.resolve("phones.wal.1")));
+            assertEquals(2, resized.getAllPhones().size());
+            assertEquals(3L, resized.savePhone(new Phone(null, "Google", "Pixel 8", 799.99)).getId());
+        } finally {
+            resized.close();
+        }
+    }
+
+    @Test
+    void testUpsertPhones() {
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+
+        int inserted = phoneDAO.upsertPhones(List.of(
+                new Phone(null, "Apple", "iPhone 14", 999.99),
+                new Phone(null, "Samsung", "Galaxy S23", 799.99),
+                new Phone(null, "Apple", "iPhone 14", 949.99)
+        ));
+
+        // Повтор ключа внутри пачки не считается второй вставкой, побеждает последняя цена
+        assertEquals(1, inserted);
+        assertEquals(2, phoneDAO.getAllPhones().size());
+        assertEquals(799.99, phoneDAO.getPhone(1L).getPrice());
+        assertEquals(949.99, phoneDAO.getPhone(2L).getPrice());
+    }
+
+    @Test
+    void testUpsertPhones_DuplicateKey() {
+        phoneDAO.savePhones(List.of(
+                new Phone(null, "Apple", "iPhone 14", 999.99),
+                new Phone(null, "Apple", "iPhone 14", 949.99)
+        ));
+        phoneDAO.deletePhone(2L);
+
+        // Удаление одного из дубликатов не должно скрывать от индекса оставшийся
+        int inserted = phoneDAO.upsertPhones(List.of(new Phone(null, "Apple", "iPhone 14", 899.99)));
+
+        assertEquals(0, inserted);
+        assertEquals(List.of(new Phone(1L, "Apple", "iPhone 14", 899.99)), phoneDAO.getAllPhones());
+    }
+}
@@ -1,19 +1,28 @@
 package com.task.crud.dao.implementation;
 
 import com.task.crud.entity.Phone;
+import com.task.crud.timing.RequestTiming;
 import jakarta.persistence.EntityManager;
 import org.hibernate.query.Query;
 import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.jdbc.Work;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.*;
 
 class PhoneDAOImplTest {
@@ -95,6 +104,89 @@ class PhoneDAOImplTest {
         verify(session).merge(newPhone);
     }
 
+    @Test
+    void testSavePhones() throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet keys = mock(ResultSet.class);
+        String sql = "insert into phone (brand, model, price) values (?, ?, ?), (?, ?, ?)";
+
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        when(connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)).thenReturn(statement);
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getLong(1)).thenReturn(10L, 11L);
+
+        List<Phone> phones = List.of(
+                new Phone(null, "Apple", "iPhone 14", 999.99),
+                new Phone(null, "Google", "Pixel 8", 799.99)
+        );
+        RequestTiming.current().startSqlCapture();
+        List<Phone> result = phoneDAO.savePhones(phones);
+
+        // Вставка выполняется в обход Hibernate и учитывается явно
+        assertEquals(1, RequestTiming.current().finishSqlCapture());
+        assertSame(phones, result);
+        assertEquals(10L, result.get(0).getId());
+        assertEquals(11L, result.get(1).getId());
+        verify(statement).setString(1, "Apple");
+        verify(statement).setString(5, "Pixel 8");
+        verify(statement).setDouble(6, 799.99);
+        verify(statement, times(1)).executeUpdate();
+    }
+
+    @Test
+    void testSavePhones_Empty() {
+        List<Phone> phones = new ArrayList<>();
+
+        assertSame(phones, phoneDAO.savePhones(phones));
+        verify(session, never()).doReturningWork(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpsertPhones() throws Exception {
+        Query<Object[]> selectQuery = mock(Query.class, RETURNS_SELF);
+        Connection connection = mock(Connection.class);
+        PreparedStatement update = mock(PreparedStatement.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        ResultSet keys = mock(ResultSet.class);
+
+        when(session.createQuery("select id, brand, model from Phone where brand in :brands and model in :models", Object[].class))
+                .thenReturn(selectQuery);
+        when(selectQuery.getResultList()).thenReturn(List.<Object[]>of(new Object[]{5L, "Apple", "iPhone 14"}));
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        when(connection.prepareStatement("update phone set price = ? where id = ?")).thenReturn(update);
+        when(connection.prepareStatement("insert into phone (brand, model, price) values (?, ?, ?)", Statement.RETURN_GENERATED_KEYS))
+                .thenReturn(insert);
+        when(insert.getGeneratedKeys()).thenReturn(keys);
+        when(keys.next()).thenReturn(true, false);
+        when(keys.getLong(1)).thenReturn(10L);
+
+        Phone existing = new Phone(null, "Apple", "iPhone 14", 949.99);
+        Phone created = new Phone(null, "Google", "Pixel 8", 799.99);
+        RequestTiming.current().startSqlCapture();
+        int inserted = phoneDAO.upsertPhones(List.of(existing, created));
+
+        // Выборку учитывает Hibernate, пакетное обновление и вставку - сам репозиторий
+        assertEquals(2, RequestTiming.current().finishSqlCapture());
+        assertEquals(1, inserted);
+        assertEquals(5L, existing.getId());
+        assertEquals(10L, created.getId());
+        verify(update).setDouble(1, 949.99);
+        verify(update).setLong(2, 5L);
+        verify(update).executeBatch();
+        // Сущности не загружаются в сессию, поэтому она не растёт от пачки к пачке импорта
+        verify(session, never()).createQuery(anyString(), eq(Phone.class));
+        verify(session, never()).merge(any());
+    }
+
     @Test
     void testDeletePhone() {
         Long phoneId = 1L;
@@ -106,4 +198,28 @@ class PhoneDAOImplTest {
         verify(query).setParameter("id", phoneId);
         verify(query).executeUpdate();
     }
+
+    @Test
+    void testMultiplyPrices() {
+        when(entityManager.createQuery("update Phone set price = price * :priceMultiplier where brand = :brand")).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(3);
+
+        int result = phoneDAO.multiplyPrices("Apple", 1.1);
+
+        assertEquals(3, result);
+        verify(query).setParameter("priceMultiplier", 1.1);
+        verify(query).setParameter("brand", "Apple");
+    }
+
+    @Test
+    void testDeletePhones() {
+        when(entityManager.createQuery("delete from Phone where 1 = 1 and brand = :brand and price <= :maxPrice")).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(2);
+
+        int result = phoneDAO.deletePhones("Apple", 500.0);
+
+        assertEquals(2, result);
+        verify(query).setParameter("brand", "Apple");
+        verify(query).setParameter("maxPrice", 500.0);
+    }
 }
@@ -0,0 +1,173 @@
+package com.task.crud.dao.implementation;
+
+import com.task.crud.entity.Phone;
+import com.task.crud.timing.RequestTiming;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedPhoneDAOTest {
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    private ShardedPhoneDAO phoneDAO;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+            new JdbcTemplate(database).execute("create table phone(" +
+                    "id bigint auto_increment primary key, " +
+                    "brand varchar(256) not null, " +
+                    "model varchar(256) not null, " +
+                    "price double not null)");
+            databases.add(database);
+        }
+        phoneDAO = new ShardedPhoneDAO(new ArrayList<DataSource>(databases));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        phoneDAO.close();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void testSavePhonesAcrossShards() {
+        for (int i = 0; i < 6; i++) {
+            phoneDAO.savePhone(new Phone(null, "Apple", "iPhone " + i, 100.0 * i));
+        }
+
+        List<Phone> phones = phoneDAO.getAllPhones();
+
+        assertEquals(6, phones.size());
+        Set<Integer> usedShards = phones.stream()
+                .map(phone -> ShardedPhoneDAO.shardOf(phone.getId()))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(0, 1, 2), usedShards);
+        for (int i = 1; i < phones.size(); i++) {
+            assertTrue(phones.get(i - 1).getId() < phones.get(i).getId());
+        }
+    }
+
+    @Test
+    void testPointOperationsAreRouted() {
+        Phone saved = phoneDAO.savePhone(new Phone(null, "Google", "Pixel 8", 799.99));
+
+        saved.setPrice(699.99);
+        phoneDAO.savePhone(saved);
+        assertEquals(699.99, phoneDAO.getPhone(saved.getId()).getPrice());
+
+        phoneDAO.deletePhone(saved.getId());
+        assertNull(phoneDAO.getPhone(saved.getId()));
+    }
+
+    @Test
+    void testGetPhones() {
+        List<Phone> saved = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            saved.add(phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S2" + i, 899.99)));
+        }
+
+        List<Long> ids = List.of(saved.get(3).getId(), saved.get(0).getId(), ShardedPhoneDAO.globalId(1, 999));
+        Set<Long> found = phoneDAO.getPhones(ids).stream().map(Phone::getId).collect(Collectors.toSet());
+
+        assertEquals(Set.of(saved.get(3).getId(), saved.get(0).getId()), found);
+    }
+
+    @Test
+    void testBulkOperationsScatter() {
+        phoneDAO.savePhones(List.of(new Phone(null, "Apple", "iPhone 14", 1000.0), new Phone(null, "Apple", "iPhone 12", 500.0)));
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 15", 1200.0));
+        phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 900.0));
+
+        assertEquals(3, phoneDAO.multiplyPrices("Apple", 0.5));
+        assertEquals(2, phoneDAO.deletePhones("Apple", 500.0));
+        assertEquals(2, phoneDAO.getAllPhones().size());
+    }
+
+    @Test
+    void testConcurrentScatter() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            phoneDAO.savePhone(new Phone(null, "Apple", "iPhone " + i, 100.0 * i));
+        }
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Phone>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(callers.submit(phoneDAO::getAllPhones));
+            }
+            for (Future<List<Phone>> result : results) {
+                assertEquals(30, result.get().size());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShardFailureIsPropagated() {
+        phoneDAO.savePhone(new Phone(null, "Apple", "iPhone 14", 999.99));
+        new JdbcTemplate(databases.get(2)).execute("drop table phone");
+
+        assertThrows(DataAccessException.class, phoneDAO::getAllPhones);
+        assertThrows(DataAccessException.class, () -> phoneDAO.multiplyPrices("Apple", 0.5));
+    }
+
+    @Test
+    void testSqlCountIncludesPoolThreads() {
+        RequestTiming timing = RequestTiming.current();
+
+        timing.startSqlCapture();
+        phoneDAO.savePhones(List.of(new Phone(null, "Apple", "iPhone 14", 999.99), new Phone(null, "Google", "Pixel 8", 799.99)));
+        assertEquals(1, timing.finishSqlCapture());
+
+        // Курсор на каждом шарде, два из которых открываются потоками пула
+        timing.startSqlCapture();
+        phoneDAO.getAllPhones();
+        assertEquals(3, timing.finishSqlCapture());
+
+        // Поиск на трёх шардах, пакетное обновление в одном и вставка нового телефона
+        timing.startSqlCapture();
+        phoneDAO.upsertPhones(List.of(new Phone(null, "Apple", "iPhone 14", 949.99), new Phone(null, "Nokia", "3310", 49.99)));
+        assertEquals(5, timing.finishSqlCapture());
+    }
+
+    @Test
+    void testUpsertPhones() {
+        Phone existing = phoneDAO.savePhone(new Phone(null, "Samsung", "Galaxy S23", 899.99));
+
+        int inserted = phoneDAO.upsertPhones(List.of(
+                new Phone(null, "Apple", "iPhone 14", 999.99),
+                new Phone(null, "Samsung", "Galaxy S23", 799.99),
+                new Phone(null, "Apple", "iPhone 14", 949.99)
+        ));
+
+        // Повтор ключа внутри пачки не считается второй вставкой, побеждает последняя цена
+        assertEquals(1, inserted);
+        List<Phone> phones = phoneDAO.getAllPhones();
+        assertEquals(2, phones.size());
+        assertEquals(799.99, phoneDAO.getPhone(existing.getId()).getPrice());
+        assertEquals(949.99, phones.stream().filter(phone -> phone.getBrand().equals("Apple")).findFirst().orElseThrow().getPrice());
+    }
+}
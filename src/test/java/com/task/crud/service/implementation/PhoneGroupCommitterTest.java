@@ -0,0 +1,239 @@
+package com.task.crud.service.implementation;
+
+import com.task.crud.dao.PhoneDAO;
+import com.task.crud.entity.Phone;
+import com.task.crud.exceptions.ServiceUnavailableException;
+import com.task.crud.timing.RequestTiming;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PhoneGroupCommitterTest {
+    @Mock
+    private PhoneDAO phoneDAO;
+
+    @InjectMocks
+    private PhoneGroupCommitter phoneGroupCommitter;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "enabled", true);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxBatchSize", 4);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxDelayMicros", 200_000L);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "queueCapacity", 16);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "submitTimeoutMillis", 2000L);
+        callers = Executors.newFixedThreadPool(4);
+
+        // Пачка с телефоном модели "bad" откатывается целиком, одиночная вставка такого телефона - тоже
+        when(phoneDAO.savePhones(anyList())).thenAnswer(invocation -> {
+            List<Phone> phones = invocation.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(phones.size());
+            }
+            for (Phone phone : phones) {
+                if ("bad".equals(phone.getModel())) {
+                    throw new IllegalArgumentException("Bad phone");
+                }
+            }
+            phones.forEach(phone -> phone.setId(nextId.getAndIncrement()));
+            return phones;
+        });
+        when(phoneDAO.savePhone(any(Phone.class))).thenAnswer(invocation -> {
+            Phone phone = invocation.getArgument(0);
+            if ("bad".equals(phone.getModel())) {
+                throw new IllegalArgumentException("Bad phone");
+            }
+            phone.setId(nextId.getAndIncrement());
+            return phone;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        phoneGroupCommitter.stop();
+    }
+
+    /**
+     * Одновременно вызывает {@link PhoneGroupCommitter#submit(Phone)} для всех телефонов.
+     */
+    private List<Future<Phone>> submitConcurrently(List<Phone> phones) {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Phone>> results = new ArrayList<>();
+        for (Phone phone : phones) {
+            results.add(callers.submit((Callable<Phone>) () -> {
+                startLatch.await();
+                return phoneGroupCommitter.submit(phone);
+            }));
+        }
+        startLatch.countDown();
+        return results;
+    }
+
+    @Test
+    void testSubmit_BatchesConcurrentCalls() throws Exception {
+        phoneGroupCommitter.start();
+        List<Phone> phones = List.of(
+                new Phone(null, "Apple", "iPhone 14", 999.99),
+                new Phone(null, "Samsung", "Galaxy S23", 899.99),
+                new Phone(null, "Google", "Pixel 8", 799.99),
+                new Phone(null, "Nokia", "3310", 49.99)
+        );
+
+        List<Future<Phone>> results = submitConcurrently(phones);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < phones.size(); i++) {
+            Phone saved = results.get(i).get();
+            assertSame(phones.get(i), saved);
+            assertNotNull(saved.getId());
+            ids.add(saved.getId());
+        }
+        assertEquals(4, ids.size());
+        assertEquals(List.of(4), batchSizes);
+        verify(phoneDAO, never()).savePhone(any(Phone.class));
+    }
+
+    @Test
+    void testSubmit_SqlCountReturnedToCaller() {
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxDelayMicros", 1000L);
+        when(phoneDAO.savePhones(anyList())).thenAnswer(invocation -> {
+            RequestTiming.current().sqlExecuted();
+            List<Phone> phones = invocation.getArgument(0);
+            phones.forEach(phone -> phone.setId(nextId.getAndIncrement()));
+            return phones;
+        });
+        phoneGroupCommitter.start();
+
+        // Вставка выполняется потоком сброса, а запрос учитывается в замерах вызывающего
+        RequestTiming timing = RequestTiming.current();
+        timing.startSqlCapture();
+        phoneGroupCommitter.submit(new Phone(null, "Apple", "iPhone 14", 999.99));
+
+        assertEquals(1, timing.finishSqlCapture());
+    }
+
+    @Test
+    void testSubmit_FlushesAfterDelay() {
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxDelayMicros", 1000L);
+        phoneGroupCommitter.start();
+
+        Phone saved = phoneGroupCommitter.submit(new Phone(null, "Apple", "iPhone 14", 999.99));
+
+        assertEquals(1L, saved.getId());
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    void testSubmit_FailedBatchRetriedOneByOne() throws Exception {
+        phoneGroupCommitter.start();
+        List<Phone> phones = List.of(
+                new Phone(null, "Apple", "iPhone 14", 999.99),
+                new Phone(null, "Samsung", "bad", 899.99),
+                new Phone(null, "Google", "Pixel 8", 799.99),
+                new Phone(null, "Nokia", "3310", 49.99)
+        );
+
+        List<Future<Phone>> results = submitConcurrently(phones);
+
+        for (int i = 0; i < phones.size(); i++) {
+            if (i == 1) {
+                ExecutionException exception = assertThrows(ExecutionException.class, results.get(i)::get);
+                assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+            } else {
+                assertNotNull(results.get(i).get().getId());
+            }
+        }
+        assertEquals(List.of(4), batchSizes);
+        verify(phoneDAO, times(4)).savePhone(any(Phone.class));
+    }
+
+    @Test
+    void testSubmit_AfterStop() throws InterruptedException {
+        phoneGroupCommitter.start();
+        phoneGroupCommitter.stop();
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> phoneGroupCommitter.submit(new Phone(null, "Apple", "iPhone 14", 999.99)));
+        verify(phoneDAO, never()).savePhones(anyList());
+    }
+
+    @Test
+    void testSubmit_FlusherDied() {
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxDelayMicros", 1000L);
+        when(phoneDAO.savePhones(anyList())).thenThrow(new StackOverflowError());
+        phoneGroupCommitter.start();
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> phoneGroupCommitter.submit(new Phone(null, "Apple", "iPhone 14", 999.99)));
+        assertThrows(ServiceUnavailableException.class,
+                () -> phoneGroupCommitter.submit(new Phone(null, "Google", "Pixel 8", 799.99)));
+    }
+
+    @Test
+    void testSubmit_TimeoutWhileQueued() throws Exception {
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxBatchSize", 1);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "submitTimeoutMillis", 200L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(phoneDAO.savePhones(anyList())).thenAnswer(invocation -> {
+            release.await();
+            List<Phone> phones = invocation.getArgument(0);
+            phones.forEach(phone -> phone.setId(nextId.getAndIncrement()));
+            return phones;
+        });
+        phoneGroupCommitter.start();
+
+        // Первая запись занимает поток сброса, вторая остаётся в очереди дольше допустимого
+        Future<Phone> first = callers.submit(() -> phoneGroupCommitter.submit(new Phone(null, "Apple", "iPhone 14", 999.99)));
+        verify(phoneDAO, timeout(1000)).savePhones(anyList());
+        assertThrows(ServiceUnavailableException.class,
+                () -> phoneGroupCommitter.submit(new Phone(null, "Google", "Pixel 8", 799.99)));
+
+        release.countDown();
+        assertEquals(1L, first.get().getId());
+        verify(phoneDAO, times(1)).savePhones(anyList());
+    }
+
+    @Test
+    void testSubmit_WaitsForBatchAlreadyTaken() {
+        ReflectionTestUtils.setField(phoneGroupCommitter, "maxDelayMicros", 1000L);
+        ReflectionTestUtils.setField(phoneGroupCommitter, "submitTimeoutMillis", 100L);
+        when(phoneDAO.savePhones(anyList())).thenAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(300);
+            List<Phone> phones = invocation.getArgument(0);
+            phones.forEach(phone -> phone.setId(nextId.getAndIncrement()));
+            return phones;
+        });
+        phoneGroupCommitter.start();
+
+        // Вставка дольше тайм-аута: вызывающий получает фактический результат, а не ошибку
+        Phone saved = phoneGroupCommitter.submit(new Phone(null, "Apple", "iPhone 14", 999.99));
+
+        assertEquals(1L, saved.getId());
+    }
+}
@@ -0,0 +1,122 @@
+package com.task.crud.service.implementation;
+
+import com.task.crud.dao.PhoneDAO;
+import com.task.crud.entity.Phone;
+import com.task.crud.response_templates.PhoneImportReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PhoneImportServiceImplTest {
+    @Mock
+    private PhoneDAO phoneDAO;
+
+    @InjectMocks
+    private PhoneImportServiceImpl phoneImportService;
+
+    private final List<List<Phone>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(phoneImportService, "batchSize", 2);
+        ReflectionTestUtils.setField(phoneImportService, "maxInFlightBatches", 2);
+        ReflectionTestUtils.setField(phoneImportService, "parallelism", 2);
+        ReflectionTestUtils.setField(phoneImportService, "maxReportedRejects", 10);
+        phoneImportService.start();
+
+        // Первая запись каждой пачки считается существующей
+        when(phoneDAO.upsertPhones(anyList())).thenAnswer(invocation -> {
+            List<Phone> batch = invocation.getArgument(0);
+            batches.add(List.copyOf(batch));
+            return batch.size() - 1;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        phoneImportService.stop();
+    }
+
+    private PhoneImportReport importCsv(String csv) {
+        return phoneImportService.importPhones(Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testImportPhones() {
+        PhoneImportReport report = importCsv("""
+                brand,model,price
+                Apple,iPhone 14,999.99
+                Samsung,"Galaxy S23, 256GB",899.99
+
+                Google,Pixel 8,799.99
+                """);
+
+        assertEquals(3, report.getTotalRows());
+        assertEquals(1, report.getInsertedRows());
+        assertEquals(2, report.getUpdatedRows());
+        assertEquals(0, report.getRejectedRows());
+        assertEquals(2, batches.size());
+        assertEquals(new Phone(null, "Samsung", "Galaxy S23, 256GB", 899.99), batches.get(0).get(1));
+        assertEquals("Pixel 8", batches.get(1).get(0).getModel());
+    }
+
+    @Test
+    void testImportPhones_Rejected() {
+        PhoneImportReport report = importCsv("""
+                Apple,iPhone 14,999.99
+                Apple,,999.99
+                Samsung,Galaxy S23,-1
+                Google,Pixel 8
+                Google,Pixel 9,abc
+                """);
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(4, report.getRejectedRows());
+        assertEquals(List.of(2L, 3L, 4L, 5L), report.getRejected().stream().map(PhoneImportReport.RejectedRow::getLineNumber).toList());
+        assertEquals("Incorrect value for 'model'", report.getRejected().get(0).getReason());
+        assertEquals("Incorrect value for 'price'", report.getRejected().get(1).getReason());
+        verify(phoneDAO, times(1)).upsertPhones(anyList());
+    }
+
+    @Test
+    void testImportPhones_QuotedLineBreaks() {
+        PhoneImportReport report = importCsv("""
+                brand,model,price
+                Apple,"iPhone 14
+                Pro Max",1199.99
+                Google,Pixel 8,799.99
+                """);
+
+        assertEquals(2, report.getTotalRows());
+        assertEquals(0, report.getRejectedRows());
+        assertEquals("iPhone 14\nPro Max", batches.get(0).get(0).getModel());
+    }
+
+    @Test
+    void testImportPhones_UnclosedQuote() {
+        PhoneImportReport report = importCsv("""
+                Apple,"iPhone 14,1199.99
+                Google,Pixel 8,799.99
+                Nokia,3310,49.99
+                Nokia,,49.99
+                """);
+
+        // Строка с одиночной кавычкой отклоняется одна, следующие разбираются со своими номерами
+        assertEquals(4, report.getTotalRows());
+        assertEquals(2, report.getRejectedRows());
+        assertEquals(List.of(1L, 4L), report.getRejected().stream().map(PhoneImportReport.RejectedRow::getLineNumber).toList());
+        assertEquals(List.of("Pixel 8", "3310"), batches.stream().flatMap(List::stream).map(Phone::getModel).toList());
+    }
+}
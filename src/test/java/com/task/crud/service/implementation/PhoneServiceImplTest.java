@@ -8,7 +8,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -17,6 +20,9 @@ public class PhoneServiceImplTest {
     @Mock
     private PhoneDAO phoneDAO;
 
+    @Mock
+    private PhoneGroupCommitter phoneGroupCommitter;
+
     @InjectMocks
     private PhoneServiceImpl phoneService;
 
@@ -65,6 +71,27 @@ public class PhoneServiceImplTest {
         assertEquals("There is no phone with 'id' = 999", exception.getMessage());
     }
 
+    @Test
+    void testGetPhones_Success() {
+        Phone first = new Phone(1L, "Apple", "iPhone 14", 999.99);
+        Phone second = new Phone(2L, "Samsung", "Galaxy S23", 899.99);
+        when(phoneDAO.getPhones(anyCollection())).thenReturn(List.of(first, second));
+
+        List<Phone> result = phoneService.getPhones(List.of(2L, 999L, 1L, 2L));
+
+        assertEquals(Arrays.asList(second, null, first, second), result);
+        verify(phoneDAO, times(1)).getPhones(new LinkedHashSet<>(List.of(2L, 999L, 1L)));
+    }
+
+    @Test
+    void testGetPhones_Error() {
+        IncorrectPhoneDataException exception = assertThrows(IncorrectPhoneDataException.class, () -> {
+            phoneService.getPhones(List.of());
+        });
+        assertEquals("Number of 'ids' must be between 1 and 1000", exception.getMessage());
+        verifyNoInteractions(phoneDAO);
+    }
+
     @Test
     void testAddPhone_Success() {
         when(phoneDAO.savePhone(validPhone)).thenReturn(validPhone);
@@ -76,6 +103,19 @@ public class PhoneServiceImplTest {
         verify(phoneDAO, times(1)).savePhone(validPhone);
     }
 
+    @Test
+    void testAddPhone_GroupCommit() {
+        Phone savedPhone = new Phone(1L, "Apple", "iPhone 14", 999.99);
+        when(phoneGroupCommitter.isEnabled()).thenReturn(true);
+        when(phoneGroupCommitter.submit(validPhone)).thenReturn(savedPhone);
+
+        Phone result = phoneService.addPhone(validPhone);
+
+        assertEquals(savedPhone, result);
+        verify(phoneGroupCommitter, times(1)).submit(validPhone);
+        verify(phoneDAO, never()).savePhone(any());
+    }
+
     @Test
     void testAddPhone_Error() {
         Phone invalidPhone = new Phone(null, "Apple", "", -999.99); // Invalid phone data
@@ -111,6 +151,41 @@ public class PhoneServiceImplTest {
         assertEquals("There is no phone with 'id' = 1", exception.getMessage());
     }
 
+    @Test
+    void testPatchPhone_Success() {
+        Phone existingPhone = new Phone(1L, "Apple", "iPhone 14", 999.99);
+        when(phoneDAO.getPhone(1L)).thenReturn(existingPhone);
+        when(phoneDAO.savePhone(existingPhone)).thenReturn(existingPhone);
+
+        Phone result = phoneService.patchPhone(1L, Map.of("price", 899));
+
+        assertEquals(899.0, result.getPrice());
+        assertEquals("iPhone 14", result.getModel());
+        verify(phoneDAO, times(1)).savePhone(existingPhone);
+    }
+
+    @Test
+    void testPatchPhone_NoChanges() {
+        Phone existingPhone = new Phone(1L, "Apple", "iPhone 14", 999.99);
+        when(phoneDAO.getPhone(1L)).thenReturn(existingPhone);
+
+        Phone result = phoneService.patchPhone(1L, Map.of("brand", "Apple", "price", 999.99));
+
+        assertEquals(existingPhone, result);
+        verify(phoneDAO, never()).savePhone(any());
+    }
+
+    @Test
+    void testPatchPhone_Error() {
+        when(phoneDAO.getPhone(1L)).thenReturn(new Phone(1L, "Apple", "iPhone 14", 999.99));
+
+        IncorrectPhoneDataException exception = assertThrows(IncorrectPhoneDataException.class, () -> {
+            phoneService.patchPhone(1L, Map.of("model", ""));
+        });
+        assertEquals("Incorrect value for 'model'", exception.getMessage());
+        verify(phoneDAO, never()).savePhone(any());
+    }
+
     @Test
     void testDeletePhone_Success() {
         when(phoneDAO.getPhone(1L)).thenReturn(new Phone(1L, "Apple", "iPhone 14", 999.99));
@@ -129,4 +204,66 @@ public class PhoneServiceImplTest {
         });
         assertEquals("There is no phone with 'id' = 999", exception.getMessage());
     }
+
+    @Test
+    void testUpdatePhonesPrice_Multiplier() {
+        when(phoneDAO.multiplyPrices("Apple", 1.1)).thenReturn(3);
+
+        int result = phoneService.updatePhonesPrice("Apple", 1.1, null);
+
+        assertEquals(3, result);
+        verify(phoneDAO, times(1)).multiplyPrices("Apple", 1.1);
+        verify(phoneDAO, never()).setPrices(anyString(), anyDouble());
+    }
+
+    @Test
+    void testUpdatePhonesPrice_Error() {
+        IncorrectPhoneDataException exception = assertThrows(IncorrectPhoneDataException.class, () -> {
+            phoneService.updatePhonesPrice("Apple", 1.1, 999.99);
+        });
+        assertEquals("Exactly one of 'priceMultiplier' and 'price' must be specified", exception.getMessage());
+        verifyNoInteractions(phoneDAO);
+    }
+
+    @Test
+    void testUpdatePhonesPrice_NonFinitePrice() {
+        for (double price : new double[]{Double.NaN, Double.POSITIVE_INFINITY}) {
+            IncorrectPhoneDataException exception = assertThrows(IncorrectPhoneDataException.class, () -> {
+                phoneService.updatePhonesPrice("Apple", null, price);
+            });
+            assertEquals("Incorrect value for 'price'", exception.getMessage());
+        }
+        verifyNoInteractions(phoneDAO);
+    }
+
+    @Test
+    void testPatchPhone_InfinitePrice() {
+        when(phoneDAO.getPhone(1L)).thenReturn(new Phone(1L, "Apple", "iPhone 14", 999.99));
+
+        // Число 1e400 в JSON разбирается как Infinity
+        IncorrectPhoneDataException exception = assertThrows(IncorrectPhoneDataException.class, () -> {
+            phoneService.patchPhone(1L, Map.of("price", Double.POSITIVE_INFINITY));
+        });
+        assertEquals("Incorrect value for 'price'", exception.getMessage());
+        verify(phoneDAO, never()).savePhone(any());
+    }
+
+    @Test
+    void testDeletePhones_Success() {
+        when(phoneDAO.deletePhones("Apple", 500.0)).thenReturn(2);
+
+        int result = phoneService.deletePhones("Apple", 500.0);
+
+        assertEquals(2, result);
+        verify(phoneDAO, times(1)).deletePhones("Apple", 500.0);
+    }
+
+    @Test
+    void testDeletePhones_Error() {
+        IncorrectPhoneDataException exception = assertThrows(IncorrectPhoneDataException.class, () -> {
+            phoneService.deletePhones(null, null);
+        });
+        assertEquals("At least one of 'brand' and 'maxPrice' must be specified", exception.getMessage());
+        verifyNoInteractions(phoneDAO);
+    }
 }
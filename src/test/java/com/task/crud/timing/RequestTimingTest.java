@@ -0,0 +1,83 @@
+package com.task.crud.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingTest {
+    private final RequestTiming timing = RequestTiming.current();
+
+    @AfterEach
+    void tearDown() {
+        timing.finish();
+    }
+
+    @Test
+    void testServerTimingHeader() {
+        timing.start(0);
+        timing.handlerStarted(1_500_000);
+        timing.enterService(2_000_000);
+        timing.enterDao(3_000_000);
+        timing.sqlExecuted();
+        timing.sqlExecuted();
+        timing.exitDao(5_250_000);
+        timing.exitService(6_000_000);
+
+        assertEquals("bind;dur=1.500, app;dur=1.750, db;dur=2.250;desc=\"2 sql\", handler;dur=5.000, total;dur=6.500",
+                timing.serverTimingHeader(6_500_000));
+    }
+
+    @Test
+    void testNestedCallsAreCountedOnce() {
+        timing.start(0);
+        timing.enterDao(1_000_000);
+        timing.enterDao(2_000_000);
+        timing.exitDao(3_000_000);
+        timing.exitDao(4_000_000);
+
+        assertTrue(timing.serverTimingHeader(4_000_000).contains("db;dur=3.000;desc=\"0 sql\""));
+    }
+
+    @Test
+    void testInactiveOutsideRequest() {
+        timing.sqlExecuted();
+        timing.enterDao(1_000_000);
+        timing.exitDao(2_000_000);
+
+        assertFalse(timing.isActive());
+        timing.start(0);
+        assertTrue(timing.serverTimingHeader(0).contains("db;dur=0.000;desc=\"0 sql\""));
+    }
+
+    @Test
+    void testSqlCountFromOtherThread() throws InterruptedException {
+        timing.start(0);
+        timing.sqlExecuted();
+
+        int[] captured = new int[1];
+        Thread worker = new Thread(() -> {
+            RequestTiming workerTiming = RequestTiming.current();
+            workerTiming.startSqlCapture();
+            workerTiming.sqlExecuted();
+            workerTiming.sqlExecuted();
+            captured[0] = workerTiming.finishSqlCapture();
+        });
+        worker.start();
+        worker.join();
+        timing.addSqlCount(captured[0]);
+
+        assertEquals(2, captured[0]);
+        assertTrue(timing.serverTimingHeader(0).contains("desc=\"3 sql\""));
+    }
+
+    @Test
+    void testDaoTimeFromOtherThread() {
+        timing.start(0);
+        timing.enterService(1_000_000);
+        timing.addDaoTime(2_500_000);
+        timing.exitService(5_000_000);
+
+        assertTrue(timing.serverTimingHeader(5_000_000).contains("app;dur=1.500, db;dur=2.500"));
+    }
+}